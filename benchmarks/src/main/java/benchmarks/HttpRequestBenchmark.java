@@ -0,0 +1,106 @@
+package benchmarks;
+
+import clients.impl.HttpClient;
+import configs.HttpConfig;
+import exceptions.ClientCreateException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpRequestBenchmark {
+
+    private static final String PATH = "/productService/getCustomProductDetails";
+
+    @Param({"0", "8"})
+    private int headers;
+
+    private UriHttpClient httpClient;
+    private Map<String, String> headerMap;
+    private Map<String, String> queryParams;
+    private URI uri;
+
+    @Setup
+    public void setUp() throws URISyntaxException, ClientCreateException {
+        HttpConfig httpConfig = new HttpConfig();
+        httpConfig.setHost("localhost");
+        httpConfig.setPort(8080);
+        httpClient = new UriHttpClient(httpConfig);
+        headerMap = new HashMap<>();
+        for (int i = 0; i < headers; i++) {
+            headerMap.put("x-header-" + i, "value-" + i);
+        }
+        queryParams = new HashMap<>();
+        queryParams.put("ids", "ACCEZT6VN9GZNAVK");
+        queryParams.put("view", "LISTING_INFO");
+        uri = httpClient.uri(PATH, Collections.emptyMap());
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+    }
+
+    @Benchmark
+    public URI getUri() throws URISyntaxException {
+        return httpClient.uri(PATH, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public URI getUriWithQuery() throws URISyntaxException {
+        return httpClient.uri(PATH, queryParams);
+    }
+
+    // Copies headers the way HttpClient.buildPost does
+    @Benchmark
+    public HttpPost copyHeaders() {
+        HttpPost httpPost = new HttpPost(uri);
+        for (String key : headerMap.keySet()) {
+            httpPost.setHeader(new BasicHeader(key, headerMap.get(key)));
+        }
+        return httpPost;
+    }
+
+    @Benchmark
+    public HttpPost copyHeadersByEntry() {
+        HttpPost httpPost = new HttpPost(uri);
+        for (Map.Entry<String, String> header : headerMap.entrySet()) {
+            httpPost.addHeader(header.getKey(), header.getValue());
+        }
+        return httpPost;
+    }
+
+    static class UriHttpClient extends HttpClient {
+
+        UriHttpClient(HttpConfig httpConfig) throws ClientCreateException {
+            super(httpConfig);
+        }
+
+        URI uri(String path, Map<String, String> queryParams) throws URISyntaxException {
+            return getUri(path, queryParams);
+        }
+    }
+}
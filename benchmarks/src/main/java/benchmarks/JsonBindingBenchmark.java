@@ -0,0 +1,91 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import models.CosmosResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.JSONObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper calls against cached ObjectReader/ObjectWriter instances, with and without Afterburner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBindingBenchmark {
+
+    @Param({"false", "true"})
+    private boolean afterburner;
+
+    @Param({"50"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private ObjectReader cosmosReader;
+    private ObjectReader mapReader;
+    private ObjectWriter mapWriter;
+    private byte[] cosmosBytes;
+    private byte[] mapBytes;
+    private Map<String, Object> payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = JSONObjectMapper.createMapper(afterburner);
+        cosmosReader = mapper.readerFor(CosmosResponse.class);
+        mapReader = mapper.readerFor(Map.class);
+        mapWriter = mapper.writerFor(HashMap.class);
+        cosmosBytes = Payloads.cosmosResponse(size).getBytes(StandardCharsets.UTF_8);
+        payload = new HashMap<>(Payloads.productDetails(size));
+        mapBytes = mapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public CosmosResponse mapperReadCosmosResponse() throws IOException {
+        return mapper.readValue(cosmosBytes, CosmosResponse.class);
+    }
+
+    @Benchmark
+    public CosmosResponse readerReadCosmosResponse() throws IOException {
+        return cosmosReader.readValue(cosmosBytes);
+    }
+
+    @Benchmark
+    public Map<?, ?> mapperReadMap() throws IOException {
+        return mapper.readValue(mapBytes, Map.class);
+    }
+
+    @Benchmark
+    public Map<?, ?> readerReadMap() throws IOException {
+        return mapReader.readValue(mapBytes);
+    }
+
+    @Benchmark
+    public byte[] mapperWriteMap() throws IOException {
+        return mapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] writerWriteMap() throws IOException {
+        return mapWriter.writeValueAsBytes(payload);
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import models.CosmosResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.JSONObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMapperBenchmark {
+
+    @Param({"1", "50"})
+    private int products;
+
+    private byte[] responseBytes;
+    private CosmosResponse response;
+
+    @Setup
+    public void setUp() throws IOException {
+        responseBytes = Payloads.cosmosResponse(products).getBytes(StandardCharsets.UTF_8);
+        response = JSONObjectMapper.INSTANCE.getMapper().readValue(responseBytes, CosmosResponse.class);
+    }
+
+    @Benchmark
+    public CosmosResponse readCosmosResponse() throws IOException {
+        return JSONObjectMapper.INSTANCE.getMapper().readValue(responseBytes, CosmosResponse.class);
+    }
+
+    @Benchmark
+    public byte[] writeCosmosResponse() throws IOException {
+        return JSONObjectMapper.INSTANCE.getMapper().writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import com.codahale.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsLookupBenchmark {
+
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        timer = MetricsRegistry.timer(MetricsLookupBenchmark.class, "post");
+    }
+
+    @Benchmark
+    public long timerContextLookup() {
+        try (Timer.Context context = MetricsRegistry.timerContext(MetricsLookupBenchmark.class, "post")) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public long resolvedTimer() {
+        try (Timer.Context context = timer.time()) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public void markMeterLookup() {
+        MetricsRegistry.markMeter(MetricsLookupBenchmark.class, 1, "sent");
+    }
+}
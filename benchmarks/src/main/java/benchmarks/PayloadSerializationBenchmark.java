@@ -0,0 +1,55 @@
+package benchmarks;
+
+import clients.impl.http.PayloadEntities;
+import org.apache.http.HttpEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.JSONObjectMapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadSerializationBenchmark {
+
+    @Param({"1", "50"})
+    private int ids;
+
+    private Map<String, Object> payload;
+
+    @Setup
+    public void setUp() {
+        payload = Payloads.productDetails(ids);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return JSONObjectMapper.INSTANCE.getMapper().writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public void streamingEntity(Blackhole blackhole) throws IOException {
+        PayloadEntities.streaming(payload).writeTo(new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public HttpEntity bufferedEntity() throws IOException {
+        return PayloadEntities.buffered(payload);
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class Payloads {
+
+    // Same shape as the getCustomProductDetails request Boot sends, with a configurable number of ids
+    static Map<String, Object> productDetails(int idCount) {
+        List<String> ids = new ArrayList<>(idCount);
+        Map<String, String> preferredListingIds = new HashMap<>();
+        for (int i = 0; i < idCount; i++) {
+            String id = String.format("ACCEZT6VN9G%05d", i);
+            ids.add(id);
+            preferredListingIds.put(id, "LST" + id);
+        }
+        Map<String, Object> serviceContext = new HashMap<>();
+        serviceContext.put("npsServices", new String[]{"PNP_LITE", "ATHENA"});
+        serviceContext.put("npsViews", new String[]{"LISTING_INFO"});
+        serviceContext.put("orderListings", true);
+        serviceContext.put("preferredListingIds", preferredListingIds);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("channelContext", Collections.singletonMap("fkApp", Collections.singletonMap("type", "Retail")));
+        payload.put("ids", ids);
+        payload.put("locationContext", new HashMap<>());
+        payload.put("serviceContext", serviceContext);
+        return payload;
+    }
+
+    static String cosmosResponse(int products) {
+        StringBuilder json = new StringBuilder("{\"dps\":{");
+        for (int i = 0; i < products; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format("\"ACCEZT6VN9G%05d\":{\"listingId\":\"LSTACCEZT6VN9G%05d\",\"price\":%d,"
+                    + "\"available\":true,\"views\":[\"LISTING_INFO\",\"PNP_LITE\"]}", i, i, 100 + i));
+        }
+        return json.append("}}").toString();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import clients.impl.kafka.ProducerSelector;
+import enums.ProducerSelectionStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with -t 1, 4, 16 and 64 to see how producer checkout scales with callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ProducerSelectionBenchmark {
+
+    @Param({"4"})
+    private int producersCount;
+
+    @Param({"roundRobin", "threadAffine"})
+    private ProducerSelectionStrategy strategy;
+
+    private LinkedBlockingQueue<Producer<byte[], byte[]>> producerQueue;
+    private ProducerSelector producerSelector;
+
+    @Setup
+    public void setUp() {
+        List<Producer<byte[], byte[]>> producers = new ArrayList<>();
+        for (int i = 0; i < producersCount; i++) {
+            producers.add(new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer()));
+        }
+        producerQueue = new LinkedBlockingQueue<>(producers);
+        producerSelector = new ProducerSelector(producers, strategy);
+    }
+
+    // The checkout/return cycle KafkaProducerClient used before producers were selected lock-free
+    @Benchmark
+    public Producer<byte[], byte[]> queueCheckout() throws InterruptedException {
+        Producer<byte[], byte[]> producer = producerQueue.poll(10, TimeUnit.SECONDS);
+        producerQueue.put(producer);
+        return producer;
+    }
+
+    @Benchmark
+    public Producer<byte[], byte[]> select() {
+        return producerSelector.select();
+    }
+}
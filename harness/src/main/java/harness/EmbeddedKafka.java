@@ -0,0 +1,77 @@
+package harness;
+
+import kafka.server.KafkaConfig;
+import kafka.server.KafkaServerStartable;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.zookeeper.server.NIOServerCnxnFactory;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Properties;
+
+@Slf4j
+public class EmbeddedKafka implements AutoCloseable {
+
+    private final File zookeeperDir;
+    private final File kafkaDir;
+    private final ServerCnxnFactory zookeeper;
+    private final KafkaServerStartable kafka;
+    private final int kafkaPort;
+
+    public EmbeddedKafka(int partitions) throws IOException, InterruptedException {
+        this.zookeeperDir = Files.createTempDirectory("harness-zookeeper").toFile();
+        this.kafkaDir = Files.createTempDirectory("harness-kafka").toFile();
+        ZooKeeperServer zooKeeperServer = new ZooKeeperServer(zookeeperDir, zookeeperDir, 2000);
+        this.zookeeper = NIOServerCnxnFactory.createFactory(new InetSocketAddress("localhost", 0), 1024);
+        zookeeper.startup(zooKeeperServer);
+        this.kafkaPort = freePort();
+        Properties props = new Properties();
+        props.put("zookeeper.connect", "localhost:" + zookeeper.getLocalPort());
+        props.put("broker.id", "0");
+        props.put("listeners", "PLAINTEXT://localhost:" + kafkaPort);
+        props.put("log.dirs", kafkaDir.getAbsolutePath());
+        props.put("num.partitions", String.valueOf(partitions));
+        props.put("offsets.topic.replication.factor", "1");
+        props.put("offsets.topic.num.partitions", "1");
+        props.put("auto.create.topics.enable", "true");
+        this.kafka = new KafkaServerStartable(KafkaConfig.fromProps(props));
+        kafka.startup();
+        log.info("Embedded kafka listening on {}", getBrokerConnectionString());
+    }
+
+    public String getBrokerConnectionString() {
+        return "localhost:" + kafkaPort;
+    }
+
+    @Override
+    public void close() {
+        kafka.shutdown();
+        kafka.awaitShutdown();
+        zookeeper.shutdown();
+        delete(kafkaDir);
+        delete(zookeeperDir);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            log.warn("Unable to delete {}", file);
+        }
+    }
+}
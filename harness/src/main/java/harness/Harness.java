@@ -0,0 +1,153 @@
+package harness;
+
+import clients.impl.HttpClient;
+import clients.impl.KafkaProducerClient;
+import configs.HttpConfig;
+import configs.KafkaProducerConfig;
+import configs.LoadStage;
+import factory.ClientFactory;
+import load.LoadReport;
+import load.OpenLoopRunner;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+public class Harness {
+
+    private static final String TOPIC = "harness";
+
+    public static void main(String[] args) throws Exception {
+        CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(getOptions(), args);
+        } catch (ParseException e) {
+            new HelpFormatter().printHelp("harness", getOptions());
+            System.exit(-1);
+            return;
+        }
+        String mode = cmd.getOptionValue("mode", "all");
+        int rate = Integer.parseInt(cmd.getOptionValue("rate", "1000"));
+        long duration = Long.parseLong(cmd.getOptionValue("duration", "30"));
+        long warmup = Long.parseLong(cmd.getOptionValue("warmup", "10"));
+        int maxOutstanding = Integer.parseInt(cmd.getOptionValue("maxOutstanding", "1000"));
+        int payloadSize = Integer.parseInt(cmd.getOptionValue("payloadSize", "512"));
+        double maxP99 = Double.parseDouble(cmd.getOptionValue("maxP99", "0"));
+
+        Map<String, LoadReport> reports = new LinkedHashMap<>();
+        if ("http".equals(mode) || "all".equals(mode)) {
+            long latency = Long.parseLong(cmd.getOptionValue("latency", "2")) * 1000;
+            long jitter = Long.parseLong(cmd.getOptionValue("jitter", "1")) * 1000;
+            double errorRate = Double.parseDouble(cmd.getOptionValue("errorRate", "0"));
+            try (StubHttpServer server = new StubHttpServer(0, 64, latency, jitter, errorRate, payloadSize)) {
+                reports.put("http", runHttp(server.getPort(), rate, duration, warmup, maxOutstanding, payloadSize));
+                log.info("Stub http server answered {} requests with injected errors", server.getErrorsServed());
+            }
+        }
+        if ("kafka".equals(mode) || "all".equals(mode)) {
+            try (EmbeddedKafka kafka = new EmbeddedKafka(4)) {
+                reports.put("kafka", runKafka(kafka.getBrokerConnectionString(), rate, duration, warmup, maxOutstanding,
+                        payloadSize));
+            }
+        }
+        ClientFactory.closeAll();
+
+        boolean failed = false;
+        for (Map.Entry<String, LoadReport> report : reports.entrySet()) {
+            System.out.println(report.getKey() + "\n" + report.getValue());
+            if (maxP99 > 0 && report.getValue().getPercentileMillis(99) > maxP99) {
+                System.out.println(report.getKey() + ": p99 above the " + maxP99 + "ms limit");
+                failed = true;
+            }
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static LoadReport runHttp(int port, int rate, long duration, long warmup, int maxOutstanding,
+                                      int payloadSize) throws Exception {
+        HttpConfig httpConfig = new HttpConfig();
+        httpConfig.setHost("localhost");
+        httpConfig.setPort(port);
+        httpConfig.setMaxTotal(200);
+        httpConfig.setMaxPerHost(200);
+        HttpClient httpClient = (HttpClient) ClientFactory.getClient(httpConfig);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("ids", Collections.singletonList("ACCEZT6VN9GZNAVK"));
+        payload.put("padding", new String(new char[payloadSize]).replace('\0', 'x'));
+        Map<String, String> headers = new HashMap<>();
+        return openLoopRunner(rate, duration, warmup, maxOutstanding)
+                .run(() -> httpClient.doPostAsync("/productService/getCustomProductDetails", headers, payload,
+                        Harness::checkStatus));
+    }
+
+    // The stub's injected 500s have to show up as errors, not as successful requests
+    private static Integer checkStatus(HttpResponse response) throws HttpResponseException {
+        StatusLine statusLine = response.getStatusLine();
+        if (statusLine.getStatusCode() >= 300) {
+            throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+        }
+        return statusLine.getStatusCode();
+    }
+
+    private static LoadReport runKafka(String brokers, int rate, long duration, long warmup, int maxOutstanding,
+                                       int payloadSize) throws Exception {
+        KafkaProducerConfig kafkaConfig = new KafkaProducerConfig();
+        kafkaConfig.setBrokerConnectionString(brokers);
+        kafkaConfig.setTopicName(TOPIC);
+        kafkaConfig.setCompressionType("none");
+        kafkaConfig.setProducersCount(2);
+        kafkaConfig.setRequestTimeout(30000);
+        kafkaConfig.setMaxBlockMS(30000);
+        kafkaConfig.setMaxIdleTime(540000);
+        kafkaConfig.setBatchSize(16384);
+        kafkaConfig.setLingerTimeInMs(1);
+        kafkaConfig.setRetryBackoffMs(100);
+        kafkaConfig.setMaxBytesInBuffer(32 * 1024 * 1024);
+        kafkaConfig.setAckConfig("1");
+        KafkaProducerClient kafkaProducerClient = (KafkaProducerClient) ClientFactory.getClient(kafkaConfig);
+        // The first send waits for topic metadata, so the topic is created before the clock starts
+        kafkaProducerClient.send(TOPIC, new byte[0], new byte[0]).get();
+        byte[] value = new byte[payloadSize];
+        Arrays.fill(value, (byte) 'x');
+        byte[][] keys = new byte[64][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = String.valueOf(i).getBytes();
+        }
+        int[] next = new int[1];
+        return openLoopRunner(rate, duration, warmup, maxOutstanding)
+                .run(() -> kafkaProducerClient.send(TOPIC, keys[next[0]++ & 63], value));
+    }
+
+    // A single flat stage; interval reports are off so only the final reports are printed
+    private static OpenLoopRunner openLoopRunner(int rate, long duration, long warmup, int maxOutstanding) {
+        return new OpenLoopRunner(Collections.singletonList(new LoadStage(rate, warmup + duration, 0)), warmup,
+                maxOutstanding, 0);
+    }
+
+    private static Options getOptions() {
+        Options opts = new Options();
+        opts.addOption("mode", true, "http, kafka or all (default all)");
+        opts.addOption("rate", true, "Target requests per second (default 1000)");
+        opts.addOption("duration", true, "Measured seconds (default 30)");
+        opts.addOption("warmup", true, "Unmeasured warmup seconds (default 10)");
+        opts.addOption("maxOutstanding", true, "Requests in flight before new ones are dropped (default 1000)");
+        opts.addOption("payloadSize", true, "Request and response payload bytes (default 512)");
+        opts.addOption("latency", true, "Stub server latency in ms (default 2)");
+        opts.addOption("jitter", true, "Extra random stub server latency in ms (default 1)");
+        opts.addOption("errorRate", true, "Fraction of stub server responses that are 500s (default 0)");
+        opts.addOption("maxP99", true, "Exit with 1 when any p99 in ms is above this");
+        return opts;
+    }
+}
@@ -0,0 +1,101 @@
+package harness;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class StubHttpServer implements AutoCloseable {
+
+    static {
+        // Without this the server's Nagle delay meets the client's delayed ACK and every response gains ~40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executorService;
+    private final long latencyMicros;
+    private final long latencyJitterMicros;
+    private final double errorRate;
+    private final byte[] responseBody;
+    private final AtomicLong errorsServed = new AtomicLong();
+
+    public StubHttpServer(int port, int threads, long latencyMicros, long latencyJitterMicros, double errorRate,
+                          int responseSize) throws IOException {
+        this.latencyMicros = latencyMicros;
+        this.latencyJitterMicros = latencyJitterMicros;
+        this.errorRate = errorRate;
+        this.responseBody = responseBody(responseSize);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        this.executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stub-http-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executorService);
+        server.start();
+        log.info("Stub http server listening on {}", getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getErrorsServed() {
+        return errorsServed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (requestBody.read(buffer) >= 0) {
+                // Drain the request so the connection can be reused
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMicros + (latencyJitterMicros > 0 ? random.nextLong(latencyJitterMicros) : 0);
+        if (delay > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int status = 200;
+        if (random.nextDouble() < errorRate) {
+            status = 500;
+            errorsServed.incrementAndGet();
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, responseBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(responseBody);
+        }
+    }
+
+    private static byte[] responseBody(int size) {
+        StringBuilder body = new StringBuilder("{\"dps\":{\"padding\":\"");
+        while (body.length() < size - 4) {
+            body.append('x');
+        }
+        return body.append("\"}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,15 +1,26 @@
 import clients.impl.HttpClient;
+import clients.impl.http.PostBatcher;
 import com.codahale.metrics.ConsoleReporter;
 import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.JsonNode;
 import configs.HttpConfig;
+import configs.LoadConfig;
+import configs.MetricsConfig;
+import enums.LoadMode;
+import exceptions.ClientFactoryException;
 import factory.ClientFactory;
+import load.LoadReport;
+import load.OpenLoopRunner;
 import lombok.extern.slf4j.Slf4j;
 import models.CosmosResponse;
 import org.apache.commons.cli.*;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
 import utils.JSONObjectMapper;
 import utils.MetricsRegistry;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -17,6 +28,7 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -26,6 +38,8 @@ public class Boot {
     private static ExecutorService executorServicePool;
     private static Map<String, String> headerMap = new HashMap<>();
     private static final Lock lock = new ReentrantLock();
+    private static PostBatcher<String, CosmosResponse, CosmosResponse> postBatcher;
+    private static final AtomicLong idSequence = new AtomicLong();
 
     public static void main(String[] args) throws Exception {
         log.info("Starting");
@@ -39,13 +53,24 @@ public class Boot {
         }
 
         String configPath = cmd.getOptionValue("configPath");
-        int threadCount = Integer.parseInt(cmd.getOptionValue('t'));
 
-        headerMap.put("x-api-key", "r9qA4fF2prQ7qgX0O9NSdFl6A3q50QxB");
-        HttpConfig httpConfig = JSONObjectMapper.INSTANCE.getYamlMapper().readValue(new File(configPath), HttpConfig.class);
+        JsonNode config = JSONObjectMapper.INSTANCE.getYamlMapper().readTree(new File(configPath));
+        HttpConfig httpConfig = JSONObjectMapper.INSTANCE.getYamlMapper().treeToValue(config, HttpConfig.class);
+        LoadConfig loadConfig = config.has("load") ?
+                JSONObjectMapper.INSTANCE.getYamlMapper().treeToValue(config.get("load"), LoadConfig.class) : new LoadConfig();
+        MetricsConfig metricsConfig = config.has("metrics") ?
+                JSONObjectMapper.INSTANCE.getYamlMapper().treeToValue(config.get("metrics"), MetricsConfig.class) :
+                new MetricsConfig();
+        MetricsRegistry.INSTANCE.startExporters(metricsConfig);
+        headerMap.putAll(loadConfig.getHeaders());
+        if (loadConfig.getMode() == LoadMode.open) {
+            runOpenLoop(httpConfig, loadConfig);
+            return;
+        }
+        int threadCount = Integer.parseInt(cmd.getOptionValue('t'));
         executorServicePool = Executors.newFixedThreadPool(threadCount);
         for (int i = 0; i < threadCount; i++) {
-            executorServicePool.submit(new HttpClientThread(httpConfig));
+            executorServicePool.submit(new HttpClientThread(httpConfig, loadConfig));
         }
         startReport();
         Runtime.getRuntime().addShutdownHook(new ShutDownThread());
@@ -60,55 +85,113 @@ public class Boot {
         return opts;
     }
 
+    private static void runOpenLoop(HttpConfig httpConfig, LoadConfig loadConfig) throws Exception {
+        HttpClient httpClient = (HttpClient) ClientFactory.getClient(httpConfig);
+        OpenLoopRunner openLoopRunner = new OpenLoopRunner(loadConfig.getProfile(), loadConfig.getWarmup(),
+                loadConfig.getMaxOutstanding(), loadConfig.getReportInterval());
+        LoadReport loadReport = openLoopRunner.run(() -> httpClient.doPostAsync(loadConfig.getPath(), headerMap,
+                loadConfig.getPayload(), response -> {
+                    StatusLine statusLine = response.getStatusLine();
+                    if (statusLine.getStatusCode() >= 300) {
+                        throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+                    }
+                    return statusLine.getStatusCode();
+                }));
+        log.info("Open loop load finished\n{}", loadReport);
+        ClientFactory.closeAll();
+        MetricsRegistry.INSTANCE.stopExporters();
+        System.exit(0);
+    }
+
     private static class HttpClientThread implements Runnable {
 
         private HttpConfig httpConfig;
-        private static final String path = "/productService/getCustomProductDetails";
+        private LoadConfig loadConfig;
 
-        HttpClientThread(HttpConfig httpConfig) {
+        HttpClientThread(HttpConfig httpConfig, LoadConfig loadConfig) {
             this.httpConfig = httpConfig;
+            this.loadConfig = loadConfig;
         }
 
         @Override
         public void run() {
-            HttpClient httpClient = (HttpClient) ClientFactory.getClient(httpConfig);
-            String payload = "{\n" +
-                    "    \"channelContext\": {\n" +
-                    "        \"fkApp\": {\n" +
-                    "            \"type\": \"Retail\"\n" +
-                    "        }\n" +
-                    "    },\n" +
-                    "    \"ids\": [\n" +
-                    "        \"ACCEZT6VN9GZNAVK\"\n" +
-                    "    ],\n" +
-                    "    \"locationContext\": {},\n" +
-                    "    \"serviceContext\": {\n" +
-                    "        \"npsServices\": [\n" +
-                    "            \"PNP_LITE\",\n" +
-                    "            \"ATHENA\"\n" +
-                    "        ],\n" +
-                    "        \"npsViews\": [\n" +
-                    "            \"LISTING_INFO\"\n" +
-                    "        ],\n" +
-                    "        \"orderListings\": true,\n" +
-                    "        \"preferredListingIds\": {\n" +
-                    "            \"ACCEZT6VN9GZNAVK\": \"LSTACCEZT6VN9GZNAVK7PNXWH\"\n" +
-                    "        }\n" +
-                    "    }\n" +
-                    "}";
-
-
+            HttpClient httpClient;
+            try {
+                httpClient = (HttpClient) ClientFactory.getClient(httpConfig);
+            } catch (ClientFactoryException e) {
+                log.error("Error getting http client", e);
+                return;
+            }
+            Map<String, Object> payloadMap = loadConfig.getPayload();
+            PostBatcher<String, CosmosResponse, CosmosResponse> batcher = loadConfig.isPostBatchingEnabled() ?
+                    getPostBatcher(httpClient, loadConfig.getPath(), payloadMap) : null;
+            List<String> ids = configuredIds(payloadMap);
+            Timer postTimer = MetricsRegistry.timer(this.getClass(), "post");
             while (true) {
-                try (Timer.Context context = MetricsRegistry.timerContext(this.getClass(), "post")) {
-                    httpClient.doPost(path, new HashMap<>(), JSONObjectMapper.INSTANCE.getMapper().readValue(payload, Map.class));
+                Timer.Context timerContext = postTimer.time();
+                try {
+                    if (batcher != null) {
+                        batcher.submit(nextId(ids)).get();
+                    } else {
+                        httpClient.doPost(loadConfig.getPath(), headerMap, payloadMap);
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
+                } finally {
+                    timerContext.stop();
                 }
             }
 
         }
     }
 
+    private static synchronized PostBatcher<String, CosmosResponse, CosmosResponse> getPostBatcher(
+            HttpClient httpClient, String path, Map<String, Object> payloadMap) {
+        if (postBatcher == null) {
+            postBatcher = httpClient.newPostBatcher(path, headerMap, CosmosResponse.class,
+                    ids -> {
+                        Map<String, Object> batchPayload = new HashMap<>(payloadMap);
+                        batchPayload.put("ids", ids);
+                        return batchPayload;
+                    },
+                    Boot::splitById);
+        }
+        return postBatcher;
+    }
+
+    private static List<String> configuredIds(Map<String, Object> payloadMap) {
+        Object ids = payloadMap.get("ids");
+        List<String> configured = new ArrayList<>();
+        if (ids instanceof List) {
+            for (Object id : (List<?>) ids) {
+                configured.add(String.valueOf(id));
+            }
+        }
+        return configured;
+    }
+
+    // Cycles through the configured ids and suffixes each further pass, so no two submissions share an id
+    private static String nextId(List<String> ids) {
+        long sequence = idSequence.getAndIncrement();
+        if (ids.isEmpty()) {
+            return String.valueOf(sequence);
+        }
+        String id = ids.get((int) (sequence % ids.size()));
+        long pass = sequence / ids.size();
+        return pass == 0 ? id : id + "-" + pass;
+    }
+
+    private static List<CosmosResponse> splitById(List<String> ids, CosmosResponse response) {
+        Map<String, Object> dps = response.getDps() == null ? Collections.<String, Object>emptyMap() : response.getDps();
+        List<CosmosResponse> split = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            CosmosResponse item = new CosmosResponse();
+            item.setDps(dps.containsKey(id) ? Collections.singletonMap(id, dps.get(id)) : Collections.<String, Object>emptyMap());
+            split.add(item);
+        }
+        return split;
+    }
+
     private static class ShutDownThread extends Thread {
         @Override
         public void run() {
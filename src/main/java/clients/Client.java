@@ -1,21 +1,58 @@
 package clients;
 
 import configs.ConnectionConfig;
+import exceptions.ClientCreateException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Slf4j
 public abstract class Client {
 
-    public Client(ConnectionConfig connectionConfig) {
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread shutdownHook = new Thread(this::tearDownOnce);
+
+    public Client(ConnectionConfig connectionConfig) throws ClientCreateException {
         try {
             init(connectionConfig);
-            Runtime.getRuntime().addShutdownHook(new Thread(this::tearDown));
-        } catch (Exception e) {
-            log.error("Error while initialising {}", this.getClass().getSimpleName());
+        } catch (ClientCreateException e) {
+            log.error("Error while initialising {}", this.getClass().getSimpleName(), e);
+            tearDownPartial();
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Error while initialising {}", this.getClass().getSimpleName(), e);
+            tearDownPartial();
+            throw new ClientCreateException("Error while initialising " + this.getClass().getSimpleName(), e);
+        }
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, the hook closes the client
+            return;
+        }
+        tearDownOnce();
+    }
+
+    // Releases whatever init started before it failed; tearDown implementations skip the parts that are still null
+    private void tearDownPartial() {
+        try {
+            tearDownOnce();
+        } catch (RuntimeException e) {
+            log.error("Error while tearing down partially initialised {}", this.getClass().getSimpleName(), e);
+        }
+    }
+
+    private void tearDownOnce() {
+        if (closed.compareAndSet(false, true)) {
+            tearDown();
         }
     }
 
-    protected abstract void init(ConnectionConfig connectionConfig);
+    protected abstract void init(ConnectionConfig connectionConfig) throws ClientCreateException;
 
     protected abstract void tearDown();
 
@@ -1,64 +1,160 @@
 package clients.impl;
 
 import clients.Client;
+import clients.impl.http.AdaptiveConcurrencyLimiter;
+import clients.impl.http.BufferPool;
+import clients.impl.http.CachedResponse;
+import clients.impl.http.CircuitBreaker;
+import clients.impl.http.CompressorPool;
+import clients.impl.http.ConnectionPoolMonitor;
+import clients.impl.http.ContentCompression;
+import clients.impl.http.HedgingPolicy;
+import clients.impl.http.InFlightLimiter;
+import clients.impl.http.JsonStreamHandler;
+import clients.impl.http.PayloadEntities;
+import clients.impl.http.PooledResponseConsumer;
+import clients.impl.http.PostBatcher;
+import clients.impl.http.RequestFactory;
+import clients.impl.http.RequestPhaseTimers;
+import clients.impl.http.RequestTrace;
+import clients.impl.http.ResponseCache;
+import clients.impl.http.RetryBudget;
+import clients.impl.http.RouteGuard;
+import clients.impl.http.SingleFlight;
+import clients.impl.http.TracingConnectionManager;
+import clients.impl.http.TracingNHttpConnectionManager;
+import clients.impl.http.TracingRequestExecutor;
+import clients.impl.http.TracingRequestProducer;
+import clients.impl.http.lb.EndpointCall;
+import clients.impl.http.lb.LoadBalancer;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import configs.ConnectionConfig;
 import configs.HttpConfig;
+import enums.WireFormat;
+import exceptions.ClientCreateException;
 import exceptions.HttpExecutionException;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.util.EntityUtils;
 import utils.JSONObjectMapper;
+import utils.MetricsRegistry;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 public class HttpClient extends Client {
 
     private CloseableHttpClient closeableHttpClient;
+    private CloseableHttpAsyncClient closeableHttpAsyncClient;
     private HttpConfig httpConfig;
+    private InFlightLimiter inFlightLimiter;
+    private BufferPool bufferPool;
+    private ContentCompression contentCompression;
+    private ConnectionPoolMonitor connectionPoolMonitor;
+    private LoadBalancer loadBalancer;
+    private RetryBudget retryBudget;
+    private HedgingPolicy hedgingPolicy;
+    private Map<String, Timer> requestTimers;
+    private Meter retryMeter;
+    private Meter hedgeMeter;
+    private Map<String, RouteGuard> routeGuards;
+    private Map<String, RequestPhaseTimers> phaseTimers;
+    private Set<String> jsonFallbackPaths;
+    private SingleFlight<String, CachedResponse> singleFlight;
+    private ResponseCache responseCache;
+    private List<PostBatcher<?, ?, ?>> postBatchers;
 
-    private static final Object POOL_LOCK = new Object();
-
-    private static ExecutorService executorServicePool;
-
-    private ExecutorService getExecutorServicePool() {
-        if (null == executorServicePool) {
-            synchronized (POOL_LOCK) {
-                if (null == executorServicePool) {
-                    executorServicePool = Executors.newFixedThreadPool(1);
-                }
-            }
-        }
-        return executorServicePool;
-    }
-
-    public HttpClient(HttpConfig httpConfig) {
+    public HttpClient(HttpConfig httpConfig) throws ClientCreateException {
         super(httpConfig);
     }
 
     @Override
-    protected void init(ConnectionConfig connectionConfig) {
+    protected void init(ConnectionConfig connectionConfig) throws ClientCreateException {
         this.httpConfig = (HttpConfig) connectionConfig;
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        this.loadBalancer = createLoadBalancer();
+        this.requestTimers = new ConcurrentHashMap<>();
+        this.retryMeter = MetricsRegistry.meter(HttpClient.class, getClientName(), "retry");
+        this.hedgeMeter = MetricsRegistry.meter(HttpClient.class, getClientName(), "hedge");
+        this.routeGuards = new ConcurrentHashMap<>();
+        this.phaseTimers = new ConcurrentHashMap<>();
+        this.jsonFallbackPaths = ConcurrentHashMap.newKeySet();
+        this.postBatchers = new CopyOnWriteArrayList<>();
+        if (httpConfig.isRequestCoalescingEnabled()) {
+            this.singleFlight = new SingleFlight<>(getClientName());
+        }
+        if (httpConfig.isResponseCacheEnabled()) {
+            this.responseCache = new ResponseCache(getClientName(), httpConfig.getResponseCacheMaxWeight(),
+                    httpConfig.getResponseCacheTtl());
+        }
+        this.retryBudget = new RetryBudget(httpConfig.getRetryBudgetRatio(), httpConfig.getRetryBudgetMaxTokens());
+        if (httpConfig.isHedgingEnabled()) {
+            this.hedgingPolicy = new HedgingPolicy(requestTimer(HttpGet.METHOD_NAME), httpConfig.getHedgePercentile(),
+                    httpConfig.getHedgeMinDelay());
+        }
+        PoolingHttpClientConnectionManager connectionManager = new TracingConnectionManager(
+                httpConfig.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
         connectionManager.setMaxTotal(httpConfig.getMaxTotal());
         connectionManager.setDefaultMaxPerRoute(httpConfig.getMaxPerHost());
+        connectionManager.setValidateAfterInactivity(httpConfig.getValidateAfterInactivity());
+        httpConfig.getMaxPerRoute().forEach((route, max) -> connectionManager.setMaxPerRoute(toRoute(route), max));
         RequestConfig defaultRequestConfig = RequestConfig.custom()
                 .setSocketTimeout(httpConfig.getSocketTimeout())
                 .setConnectTimeout(httpConfig.getConnectionTimeout())
@@ -66,31 +162,109 @@ public class HttpClient extends Client {
                 .build();
         this.closeableHttpClient = HttpClients.custom()
                 .setDefaultRequestConfig(defaultRequestConfig)
+                .setRequestExecutor(new TracingRequestExecutor())
+                .disableContentCompression()
                 .setConnectionManager(connectionManager).build();
+        this.bufferPool = new BufferPool(httpConfig.getResponseBufferPoolSize(), httpConfig.getResponseBufferSize(),
+                httpConfig.getMaxPooledResponseBufferSize());
+        this.contentCompression = new ContentCompression(httpConfig.getRequestCompression(),
+                httpConfig.getRequestCompressionThreshold(), httpConfig.isResponseDecompressionEnabled(),
+                new CompressorPool(httpConfig.getCompressorPoolSize(), httpConfig.getRequestCompressionLevel()),
+                bufferPool);
+        this.inFlightLimiter = new InFlightLimiter(httpConfig.getMaxInFlight(), httpConfig.getMaxInFlightPerRoute(),
+                httpConfig.getInFlightAcquireTimeout());
+        PoolingNHttpClientConnectionManager asyncConnectionManager = createAsyncConnectionManager();
+        this.closeableHttpAsyncClient = HttpAsyncClients.custom()
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .setConnectionManager(asyncConnectionManager).build();
+        closeableHttpAsyncClient.start();
+        this.connectionPoolMonitor = new ConnectionPoolMonitor(getClientName(), connectionManager, asyncConnectionManager, httpConfig.getIdleConnectionTimeout());
+        connectionPoolMonitor.start(httpConfig.getEvictionInterval());
+    }
+
+    private PoolingNHttpClientConnectionManager createAsyncConnectionManager() throws ClientCreateException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(httpConfig.getIoThreadCount())
+                .setConnectTimeout(httpConfig.getConnectionTimeout())
+                .setSoTimeout(httpConfig.getSocketTimeout())
+                .build();
+        Registry<SchemeIOSessionStrategy> sessionStrategyRegistry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                .build();
+        try {
+            PoolingNHttpClientConnectionManager connectionManager = new TracingNHttpConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig), ManagedNHttpClientConnectionFactory.INSTANCE,
+                    sessionStrategyRegistry, DefaultSchemePortResolver.INSTANCE, SystemDefaultDnsResolver.INSTANCE,
+                    httpConfig.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
+            connectionManager.setMaxTotal(httpConfig.getMaxTotal());
+            connectionManager.setDefaultMaxPerRoute(httpConfig.getMaxPerHost());
+            httpConfig.getMaxPerRoute().forEach((route, max) -> connectionManager.setMaxPerRoute(toRoute(route), max));
+            return connectionManager;
+        } catch (IOReactorException e) {
+            throw new ClientCreateException("Error while creating http io reactor", e);
+        }
+    }
+
+    private LoadBalancer createLoadBalancer() {
+        List<HttpHost> hosts = new ArrayList<>();
+        if (httpConfig.getEndpoints().isEmpty()) {
+            hosts.add(new HttpHost(httpConfig.getHost(), httpConfig.getPort(), getScheme()));
+        } else {
+            httpConfig.getEndpoints().forEach(endpoint -> hosts.add(toHttpHost(endpoint)));
+        }
+        return new LoadBalancer(hosts, httpConfig.getLoadBalancingStrategy(),
+                httpConfig.getOutlierConsecutiveFailures(), httpConfig.getOutlierEjectionTime(),
+                httpConfig.getMaxEjectionPercent());
+    }
+
+    private String getClientName() {
+        return loadBalancer.getEndpoints().get(0).toString();
+    }
+
+    private HttpHost toHttpHost(String hostAndPort) {
+        return HttpHost.create(getScheme() + "://" + hostAndPort);
+    }
+
+    private HttpRoute toRoute(String hostAndPort) {
+        HttpHost host = toHttpHost(hostAndPort);
+        return new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
     }
 
     @Override
     protected void tearDown() {
+        if (postBatchers != null) {
+            postBatchers.forEach(PostBatcher::close);
+        }
+        if (connectionPoolMonitor != null) {
+            connectionPoolMonitor.stop();
+        }
+        if (loadBalancer != null) {
+            MetricsRegistry.removeMetrics(HttpClient.class, getClientName(), "route");
+        }
         try {
-            closeableHttpClient.close();
+            if (closeableHttpClient != null) {
+                closeableHttpClient.close();
+            }
         } catch (Exception e) {
             log.error("Error while closing http client", e);
         }
+        try {
+            if (closeableHttpAsyncClient != null) {
+                closeableHttpAsyncClient.close();
+            }
+        } catch (Exception e) {
+            log.error("Error while closing http async client", e);
+        }
     }
 
     public <T> T doPost(Class<T> responseType, String path, Map<String, String> headerMap, Object payload) throws
             HttpExecutionException {
         T httpResponse;
         try {
-            HttpPost httpPost = new HttpPost(getUri(path));
-            for (String key : headerMap.keySet()) {
-                httpPost.setHeader(new BasicHeader(key, headerMap.get(key)));
-            }
-            StringEntity stringEntity = new StringEntity(JSONObjectMapper.INSTANCE.getMapper()
-                    .writeValueAsString(payload), StandardCharsets.UTF_8.toString());
-            stringEntity.setContentType("application/json");
-            httpPost.setEntity(stringEntity);
-            httpResponse = execute(responseType, httpPost);
+            WireFormat format = requestFormat(path);
+            httpResponse = execute(buildPost(path, headerMap, streamingEntity(payload, format), format),
+                    negotiated(path, format, response -> readValue(responseType, response)));
         } catch (Exception e) {
             log.error("Error while preparing http client request: Payload: {} ", payload.toString(), e);
             throw new HttpExecutionException("Error while making http post request", e);
@@ -101,15 +275,9 @@ public class HttpClient extends Client {
     public Boolean doPost(String path, Map<String, String> headerMap, Object payload) throws
             HttpExecutionException {
         try {
-            HttpPost httpPost = new HttpPost(getUri(path));
-            for (String key : headerMap.keySet()) {
-                httpPost.setHeader(new BasicHeader(key, headerMap.get(key)));
-            }
-            StringEntity stringEntity = new StringEntity(JSONObjectMapper.INSTANCE.getMapper()
-                    .writeValueAsString(payload), StandardCharsets.UTF_8.toString());
-            stringEntity.setContentType("application/json");
-            httpPost.setEntity(stringEntity);
-            execute(httpPost);
+            WireFormat format = requestFormat(path);
+            execute(buildPost(path, headerMap, streamingEntity(payload, format), format),
+                    negotiated(path, format, response -> true));
             return true;
         } catch (Exception e) {
             log.error("Error while preparing http client request: Payload: {} ", payload.toString(), e);
@@ -117,44 +285,144 @@ public class HttpClient extends Client {
         }
     }
 
-    public <T> Future<T> doPostAsync(Class<T> responseType, String path, Map<String, String> headerMap, Object payload) throws
-            HttpExecutionException {
-        return getExecutorServicePool().submit(() -> doPost(responseType, path, headerMap, payload));
+    public <T> T doPost(JsonStreamHandler<T> streamHandler, String path, Map<String, String> headerMap,
+                        Object payload) throws HttpExecutionException {
+        try {
+            WireFormat format = requestFormat(path);
+            return execute(buildPost(path, headerMap, streamingEntity(payload, format), format),
+                    negotiated(path, format, response -> readStream(streamHandler, response)));
+        } catch (Exception e) {
+            log.error("Error while preparing http client request: Payload: {} ", payload.toString(), e);
+            throw new HttpExecutionException("Error while making http post request", e);
+        }
+    }
+
+    public <T> CompletableFuture<T> doPostAsync(JsonStreamHandler<T> streamHandler, String path,
+                                                Map<String, String> headerMap, Object payload)
+            throws HttpExecutionException {
+        return executeAsyncPost(path, headerMap, payload, response -> readStream(streamHandler, response));
+    }
+
+    public <T> CompletableFuture<T> doPostAsync(Class<T> responseType, String path, Map<String, String> headerMap,
+                                                Object payload) throws HttpExecutionException {
+        return executeAsyncPost(path, headerMap, payload, response -> readValue(responseType, response));
     }
 
-    public Future<Boolean> doPostAsync(String path, Map<String, String> headerMap, Object payload) throws
+    public CompletableFuture<Boolean> doPostAsync(String path, Map<String, String> headerMap, Object payload) throws
             HttpExecutionException {
-        return getExecutorServicePool().submit(() -> doPost(path, headerMap, payload));
+        return executeAsyncPost(path, headerMap, payload, response -> true);
     }
 
-    public <T> T doGet(Class<T> responseType, String path, Map<String, String> headerMap)
-            throws HttpExecutionException {
-        T httpResponse;
+    // The async body sits in a pooled buffer that is reused once the handler returns, so a caller's handler gets a
+    // copy it may keep along with the response, entity or stream
+    public <T> CompletableFuture<T> doPostAsync(String path, Map<String, String> headerMap, Object payload,
+                                                ResponseHandler<T> responseHandler) throws HttpExecutionException {
+        return executeAsyncPost(path, headerMap, payload, detached(responseHandler));
+    }
+
+    private static <T> ResponseHandler<T> detached(ResponseHandler<T> responseHandler) {
+        return response -> {
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                ByteArrayEntity copy = new ByteArrayEntity(EntityUtils.toByteArray(entity));
+                copy.setContentType(entity.getContentType());
+                copy.setContentEncoding(entity.getContentEncoding());
+                response.setEntity(copy);
+            }
+            return responseHandler.handleResponse(response);
+        };
+    }
+
+    public <I, R, O> PostBatcher<I, R, O> newPostBatcher(String path, Map<String, String> headerMap, Class<R> responseType,
+                                                         PostBatcher.Merger<I> merger,
+                                                         PostBatcher.Splitter<I, R, O> splitter) {
+        PostBatcher<I, R, O> postBatcher = new PostBatcher<>(this, path, headerMap, responseType, merger, splitter,
+                httpConfig.getPostBatchMaxSize(), httpConfig.getPostBatchWindow());
+        postBatchers.add(postBatcher);
+        return postBatcher;
+    }
+
+    private <T> CompletableFuture<T> executeAsyncPost(String path, Map<String, String> headerMap, Object payload,
+                                                      ResponseHandler<T> responseHandler) throws HttpExecutionException {
+        WireFormat format = requestFormat(path);
+        long serializeStart = System.nanoTime();
+        HttpEntity entity = bufferedEntity(payload, format);
+        long serializeNanos = System.nanoTime() - serializeStart;
+        return executeAsync(buildPost(path, headerMap, entity, format), negotiated(path, format, responseHandler),
+                serializeNanos);
+    }
+
+    // With request compression on the body is serialized up front to check the threshold, otherwise it streams
+    private HttpEntity streamingEntity(Object payload, WireFormat format) throws IOException {
+        return contentCompression.compress(PayloadEntities.streaming(payload, format));
+    }
+
+    private HttpEntity bufferedEntity(Object payload, WireFormat format) throws HttpExecutionException {
         try {
-            HttpGet httpGet = new HttpGet(getUri(path));
-            if (!headerMap.isEmpty()) {
-                for (String key : headerMap.keySet()) {
-                    httpGet.setHeader(new BasicHeader(key, headerMap.get(key)));
+            return contentCompression.compress(PayloadEntities.buffered(payload, format));
+        } catch (IOException e) {
+            log.error("Error while preparing http client request: Payload: {} ", payload.toString(), e);
+            throw new HttpExecutionException("Error while making http post request", e);
+        }
+    }
+
+    private HttpPost buildPost(String path, Map<String, String> headerMap, HttpEntity entity, WireFormat format)
+            throws HttpExecutionException {
+        HttpPost httpPost = new HttpPost(buildUri(path, Collections.emptyMap()));
+        for (String key : headerMap.keySet()) {
+            httpPost.setHeader(new BasicHeader(key, headerMap.get(key)));
+        }
+        setAccept(httpPost, format);
+        contentCompression.acceptEncoding(httpPost);
+        httpPost.setEntity(entity);
+        return httpPost;
+    }
+
+    private WireFormat requestFormat(String path) {
+        if (jsonFallbackPaths.contains(path)) {
+            return WireFormat.json;
+        }
+        WireFormat format = httpConfig.getPathWireFormats().get(path);
+        return format != null ? format : httpConfig.getWireFormat();
+    }
+
+    // Binary formats still accept JSON, so a server that does not speak them can answer in JSON instead
+    private void setAccept(HttpRequestBase httpRequest, WireFormat format) {
+        if (format != WireFormat.json && !httpRequest.containsHeader(HttpHeaders.ACCEPT)) {
+            httpRequest.setHeader(HttpHeaders.ACCEPT,
+                    format.getContentType() + ", " + WireFormat.json.getContentType() + ";q=0.5");
+        }
+    }
+
+    // A 415 means the server cannot read the binary body, so later requests to the path go out as JSON. The request
+    // that got the 415 is not resent; it fails with the status rather than with an attempt to parse the error body
+    private <T> ResponseHandler<T> negotiated(String path, WireFormat format, ResponseHandler<T> responseHandler) {
+        if (format == WireFormat.json) {
+            return responseHandler;
+        }
+        return response -> {
+            StatusLine statusLine = response.getStatusLine();
+            if (statusLine.getStatusCode() == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE) {
+                if (jsonFallbackPaths.add(path)) {
+                    log.warn("{} rejected {} request bodies, falling back to JSON", path, format);
                 }
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new HttpResponseException(statusLine.getStatusCode(), path + " does not accept " + format
+                        + " request bodies, later requests are sent as JSON");
             }
-            httpResponse = execute(responseType, httpGet);
-        } catch (Exception e) {
-            log.error("Error while preparing http client request", e);
-            throw new HttpExecutionException("Error while making http get request", e);
-        }
-        return httpResponse;
+            return responseHandler.handleResponse(response);
+        };
+    }
+
+    public <T> T doGet(Class<T> responseType, String path, Map<String, String> headerMap)
+            throws HttpExecutionException {
+        return doGet(responseType, path, Collections.emptyMap(), headerMap);
     }
 
     public <T> T doGet(Class<T> responseType, URI uri, Map<String, String> headerMap) throws HttpExecutionException {
         T httpResponse;
         try {
-            HttpGet httpGet = new HttpGet(uri);
-            if (!headerMap.isEmpty()) {
-                for (String key : headerMap.keySet()) {
-                    httpGet.setHeader(new BasicHeader(key, headerMap.get(key)));
-                }
-            }
-            httpResponse = execute(responseType, httpGet);
+            httpResponse = executeGet(() -> buildGet(uri, headerMap), response -> readValue(responseType, response));
         } catch (Exception e) {
             log.error("Error while preparing http client request", e);
             throw new HttpExecutionException("Error while making http get request", e);
@@ -166,13 +434,8 @@ public class HttpClient extends Client {
                        Map<String, String> headerMap) throws HttpExecutionException {
         T httpResponse;
         try {
-            HttpGet httpGet = new HttpGet(getUri(path, queryParamsMap));
-            if (!headerMap.isEmpty()) {
-                for (String key : headerMap.keySet()) {
-                    httpGet.setHeader(new BasicHeader(key, headerMap.get(key)));
-                }
-            }
-            httpResponse = execute(responseType, httpGet);
+            httpResponse = executeGet(() -> buildGet(buildUri(path, queryParamsMap), headerMap),
+                    response -> readValue(responseType, response));
         } catch (Exception e) {
             log.error("Error while preparing http client request", e);
             throw new HttpExecutionException("Error while making http get request", e);
@@ -181,32 +444,71 @@ public class HttpClient extends Client {
     }
 
     public <T> T doGet(Class<T> responseType, String path) throws HttpExecutionException {
-        T httpResponse;
-        try {
-            httpResponse = doGet(responseType, path, Collections.emptyMap());
-        } catch (Exception e) {
-            log.error("Error while preparing http client request", e);
-            throw new HttpExecutionException("Error while making http get request", e);
+        return doGet(responseType, path, Collections.emptyMap());
+    }
+
+    public <T> T doGet(JsonStreamHandler<T> streamHandler, String path, Map<String, String> queryParamsMap,
+                       Map<String, String> headerMap) throws HttpExecutionException {
+        return executeGet(() -> buildGet(buildUri(path, queryParamsMap), headerMap),
+                response -> readStream(streamHandler, response));
+    }
+
+    public <T> CompletableFuture<T> doGetAsync(JsonStreamHandler<T> streamHandler, String path,
+                                               Map<String, String> queryParamsMap, Map<String, String> headerMap)
+            throws HttpExecutionException {
+        HttpGet httpGet = buildGet(buildUri(path, queryParamsMap), headerMap);
+        return executeAsync(httpGet, response -> readStream(streamHandler, response));
+    }
+
+    public <T> CompletableFuture<T> doGetAsync(Class<T> responseType, URI uri, Map<String, String> headerMap)
+            throws HttpExecutionException {
+        return executeAsync(buildGet(uri, headerMap), response -> readValue(responseType, response));
+    }
+
+    public <T> CompletableFuture<T> doGetAsync(Class<T> responseType, String path, Map<String, String> queryParamsMap,
+                                               Map<String, String> headerMap) throws HttpExecutionException {
+        return doGetAsync(responseType, buildUri(path, queryParamsMap), headerMap);
+    }
+
+    public <T> CompletableFuture<T> doGetAsync(Class<T> responseType, String path, Map<String, String> headerMap)
+            throws HttpExecutionException {
+        return doGetAsync(responseType, path, Collections.emptyMap(), headerMap);
+    }
+
+    public <T> CompletableFuture<T> doGetAsync(Class<T> responseType, String path) throws HttpExecutionException {
+        return doGetAsync(responseType, path, Collections.emptyMap());
+    }
+
+    public CompletableFuture<Boolean> doGetAsync(String path, Map<String, String> headerMap)
+            throws HttpExecutionException {
+        return executeAsync(buildGet(buildUri(path, Collections.emptyMap()), headerMap), response -> true);
+    }
+
+    private HttpGet buildGet(URI uri, Map<String, String> headerMap) {
+        HttpGet httpGet = new HttpGet(uri);
+        for (String key : headerMap.keySet()) {
+            httpGet.setHeader(new BasicHeader(key, headerMap.get(key)));
         }
-        return httpResponse;
+        setAccept(httpGet, requestFormat(uri.getPath()));
+        contentCompression.acceptEncoding(httpGet);
+        return httpGet;
     }
 
-    public <T> T doGetAsync(Class<T> responseType, String path) throws HttpExecutionException {
-        T httpResponse;
+    private URI buildUri(String path, Map<String, String> queryParamsMap) throws HttpExecutionException {
         try {
-            httpResponse = doGet(responseType, path, Collections.emptyMap());
-        } catch (Exception e) {
-            log.error("Error while preparing http client request", e);
-            throw new HttpExecutionException("Error while making http get request", e);
+            return getUri(path, queryParamsMap);
+        } catch (URISyntaxException e) {
+            log.error("Error while building uri for path {}", path, e);
+            throw new HttpExecutionException("Error while building http request uri", e);
         }
-        return httpResponse;
     }
 
     @SuppressWarnings("WeakerAccess")
     protected URI getUri(String path, Map<String, String> queryParamsMap) throws URISyntaxException {
+        HttpHost target = loadBalancer.select().getHost();
         URIBuilder uriBuilder = new URIBuilder().setScheme(getScheme())
-                .setHost(httpConfig.getHost())
-                .setPort(httpConfig.getPort())
+                .setHost(target.getHostName())
+                .setPort(target.getPort())
                 .setPath(path);
         if (!queryParamsMap.isEmpty()) {
             for (String key : queryParamsMap.keySet()) {
@@ -216,27 +518,338 @@ public class HttpClient extends Client {
         return uriBuilder.build();
     }
 
-    private URI getUri(String path) throws URISyntaxException {
-        return getUri(path, Collections.emptyMap());
-    }
-
-    private <T> T execute(Class<T> responseType, HttpRequestBase httpRequest) throws HttpExecutionException {
-        try (CloseableHttpResponse closeableHttpResponse = closeableHttpClient.execute(httpRequest)) {
-            InputStream content = closeableHttpResponse.getEntity().getContent();
-            return JSONObjectMapper.INSTANCE.getMapper()
-                    .readValue(content, responseType);
+    private <T> T execute(HttpRequestBase httpRequest, ResponseHandler<T> responseHandler)
+            throws HttpExecutionException {
+        String route = getRoute(httpRequest);
+        RouteGuard routeGuard = routeGuard(route);
+        CircuitBreaker.Permit permit = routeGuard.tryAcquire();
+        if (permit == null) {
+            throw rejected(route);
+        }
+        EndpointCall endpointCall = loadBalancer.begin(httpRequest.getURI());
+        RequestTrace trace = httpConfig.isPhaseTimingEnabled() ? new RequestTrace(-1) : null;
+        Timer.Context timerContext = requestTimer(httpRequest.getMethod()).time();
+        try {
+            ResponseHandler<T> decompressing = contentCompression.decompressing(responseHandler);
+            return closeableHttpClient.execute(httpRequest,
+                    endpointCall.wrap(trace != null ? trace.wrap(decompressing) : decompressing), trace);
         } catch (Exception e) {
+            endpointCall.complete(false);
             log.error("Error while executing http {} request", httpRequest.getMethod(), e);
             throw new HttpExecutionException("Error while executing http request", e);
+        } finally {
+            timerContext.stop();
+            routeGuard.onComplete(permit, endpointCall.getElapsedNanos(), endpointCall.isSucceeded());
+            if (trace != null) {
+                recordTrace(route, httpRequest, trace);
+            }
+            releaseEntity(httpRequest);
+        }
+    }
+
+    private void releaseEntity(HttpRequestBase httpRequest) {
+        if (httpRequest instanceof HttpEntityEnclosingRequest) {
+            contentCompression.release(((HttpEntityEnclosingRequest) httpRequest).getEntity());
+        }
+    }
+
+    private <T> T executeGet(RequestFactory<HttpGet> requestFactory, ResponseHandler<T> responseHandler)
+            throws HttpExecutionException {
+        if (responseCache == null && singleFlight == null) {
+            return fetchGet(requestFactory, responseHandler);
+        }
+        HttpGet httpGet = requestFactory.create();
+        String cacheKey = getCacheKey(httpGet);
+        CachedResponse cachedResponse = responseCache != null ? responseCache.get(cacheKey) : null;
+        if (cachedResponse == null) {
+            RequestFactory<HttpGet> attempts = new RequestFactory<HttpGet>() {
+                private boolean firstAttempt = true;
+
+                @Override
+                public HttpGet create() throws HttpExecutionException {
+                    if (firstAttempt) {
+                        firstAttempt = false;
+                        return httpGet;
+                    }
+                    return requestFactory.create();
+                }
+            };
+            cachedResponse = singleFlight != null ? singleFlight.execute(cacheKey, () -> fetchCacheable(cacheKey, attempts))
+                    : fetchCacheable(cacheKey, attempts);
+        }
+        try {
+            return responseHandler.handleResponse(cachedResponse.toHttpResponse());
+        } catch (IOException e) {
+            log.error("Error while reading cached http response for {}", cacheKey, e);
+            throw new HttpExecutionException("Error while reading http response", e);
+        }
+    }
+
+    private CachedResponse fetchCacheable(String cacheKey, RequestFactory<HttpGet> requestFactory)
+            throws HttpExecutionException {
+        CachedResponse response = fetchGet(requestFactory, CachedResponse::from);
+        if (responseCache != null) {
+            responseCache.put(cacheKey, response);
+        }
+        return response;
+    }
+
+    private String getCacheKey(HttpGet httpGet) {
+        URI uri = httpGet.getURI();
+        // Load balanced endpoints serve the same content, so the selected host is left out of the key
+        StringBuilder key = new StringBuilder();
+        if (loadBalancer.isEndpoint(uri)) {
+            key.append(uri.getRawPath());
+            if (uri.getRawQuery() != null) {
+                key.append('?').append(uri.getRawQuery());
+            }
+        } else {
+            key.append(uri);
+        }
+        for (String headerName : httpConfig.getCacheKeyHeaders()) {
+            Header header = httpGet.getFirstHeader(headerName);
+            key.append('|').append(header != null ? header.getValue() : "");
+        }
+        return key.toString();
+    }
+
+    private <T> T fetchGet(RequestFactory<HttpGet> requestFactory, ResponseHandler<T> responseHandler)
+            throws HttpExecutionException {
+        ResponseHandler<T> checkedHandler = failOnServerError(responseHandler);
+        retryBudget.onRequest();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return hedgingPolicy != null ? executeHedged(requestFactory, checkedHandler)
+                        : execute(requestFactory.create(), checkedHandler);
+            } catch (HttpExecutionException e) {
+                if (!isRetryable(e) || attempt >= httpConfig.getMaxRetries() || !retryBudget.tryWithdraw()) {
+                    throw e;
+                }
+                retryMeter.mark();
+                backOff(attempt);
+            }
+        }
+    }
+
+    // A 5xx body may still deserialize, so it fails here before the handler can turn it into a result
+    private static <T> ResponseHandler<T> failOnServerError(ResponseHandler<T> responseHandler) {
+        return response -> {
+            StatusLine statusLine = response.getStatusLine();
+            if (statusLine.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+                throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+            }
+            return responseHandler.handleResponse(response);
+        };
+    }
+
+    // Transport failures and 5xx answers may succeed on another attempt, rejections and unreadable bodies never will
+    private static boolean isRetryable(HttpExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof HttpResponseException) {
+            return ((HttpResponseException) cause).getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
         }
+        return cause instanceof IOException && !(cause instanceof JsonProcessingException);
     }
 
-    private void execute(HttpRequestBase httpRequest) throws HttpExecutionException {
-        try (CloseableHttpResponse closeableHttpResponse = closeableHttpClient.execute(httpRequest)) {
-            InputStream content = closeableHttpResponse.getEntity().getContent();
+    private <T> T executeHedged(RequestFactory<HttpGet> requestFactory, ResponseHandler<T> responseHandler)
+            throws HttpExecutionException {
+        CompletableFuture<T> primary = executeAsync(requestFactory.create(), responseHandler);
+        CompletableFuture<T> hedge = null;
+        try {
+            try {
+                return primary.get(hedgingPolicy.getDelayMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (!retryBudget.tryWithdraw()) {
+                    return primary.get();
+                }
+                hedgeMeter.mark();
+                hedge = executeAsync(requestFactory.create(), responseHandler);
+                return HedgingPolicy.firstSuccessful(primary, hedge).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpExecutionException("Interrupted while waiting for http response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HttpExecutionException) {
+                throw (HttpExecutionException) e.getCause();
+            }
+            throw new HttpExecutionException("Error while executing http request", e.getCause());
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private void backOff(int attempt) throws HttpExecutionException {
+        long ceiling = Math.min(httpConfig.getMaxRetryBackoff(), httpConfig.getRetryBackoff() << Math.min(attempt, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpExecutionException("Interrupted while backing off http retry", e);
+        }
+    }
+
+    private String getRoute(HttpRequestBase httpRequest) {
+        return URIUtils.extractHost(httpRequest.getURI()).toHostString();
+    }
+
+    private RouteGuard routeGuard(String route) {
+        RouteGuard routeGuard = routeGuards.get(route);
+        return routeGuard != null ? routeGuard : routeGuards.computeIfAbsent(route, this::createRouteGuard);
+    }
+
+    private RouteGuard createRouteGuard(String route) {
+        CircuitBreaker circuitBreaker = null;
+        AdaptiveConcurrencyLimiter concurrencyLimiter = null;
+        if (httpConfig.isCircuitBreakerEnabled()) {
+            CircuitBreaker breaker = new CircuitBreaker(route, httpConfig.getCircuitBreakerFailureRateThreshold(),
+                    httpConfig.getCircuitBreakerWindowSize(), httpConfig.getCircuitBreakerMinimumRequests(),
+                    httpConfig.getCircuitBreakerOpenTime(), httpConfig.getCircuitBreakerHalfOpenRequests());
+            MetricsRegistry.registerGauge(HttpClient.class, (Gauge<String>) () -> breaker.getState().name(),
+                    getClientName(), "route", route, "circuitState");
+            circuitBreaker = breaker;
+        }
+        if (httpConfig.isAdaptiveConcurrencyEnabled()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    httpConfig.getAdaptiveConcurrencyInitialLimit(), httpConfig.getAdaptiveConcurrencyMinLimit(),
+                    httpConfig.getAdaptiveConcurrencyMaxLimit());
+            MetricsRegistry.registerGauge(HttpClient.class, (Gauge<Integer>) limiter::getLimit,
+                    getClientName(), "route", route, "concurrencyLimit");
+            MetricsRegistry.registerGauge(HttpClient.class, (Gauge<Integer>) limiter::getInFlight,
+                    getClientName(), "route", route, "inFlight");
+            concurrencyLimiter = limiter;
+        }
+        return new RouteGuard(circuitBreaker, concurrencyLimiter);
+    }
+
+    private HttpExecutionException rejected(String route) {
+        MetricsRegistry.markMeter(HttpClient.class, 1, getClientName(), "route", route, "rejected");
+        return new HttpExecutionException("Upstream " + route + " is unhealthy or at its concurrency limit", null);
+    }
+
+    private void recordTrace(String route, HttpRequestBase httpRequest, RequestTrace trace) {
+        trace.complete();
+        RequestPhaseTimers timers = phaseTimers.get(route);
+        if (timers == null) {
+            timers = phaseTimers.computeIfAbsent(route, key -> new RequestPhaseTimers(getClientName(), key));
+        }
+        timers.record(trace);
+        if (trace.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(httpConfig.getSlowRequestThreshold())
+                && ThreadLocalRandom.current().nextDouble() < httpConfig.getSlowRequestLogSampleRate()) {
+            log.warn("Slow http {} {} on {}: {}", httpRequest.getMethod(), httpRequest.getURI().getPath(), route, trace);
+        }
+    }
+
+    private Timer requestTimer(String method) {
+        return requestTimers.computeIfAbsent(method,
+                key -> MetricsRegistry.timer(HttpClient.class, getClientName(), "request", key));
+    }
+
+    private <T> T readValue(Class<T> responseType, HttpResponse response) throws IOException {
+        try (InputStream content = response.getEntity().getContent()) {
+            return JSONObjectMapper.INSTANCE.reader(responseFormat(response), responseType).readValue(content);
+        }
+    }
+
+    private WireFormat responseFormat(HttpResponse response) {
+        Header contentType = response.getEntity().getContentType();
+        return WireFormat.fromContentType(contentType != null ? contentType.getValue() : null);
+    }
+
+    private <T> T readStream(JsonStreamHandler<T> streamHandler, HttpResponse response) throws IOException {
+        try (JsonParser parser = JSONObjectMapper.INSTANCE.getMapper(responseFormat(response)).getFactory()
+                .createParser(response.getEntity().getContent())) {
+            return streamHandler.handle(parser);
+        }
+    }
+
+    private <T> CompletableFuture<T> executeAsync(HttpRequestBase httpRequest, ResponseHandler<T> responseHandler) {
+        return executeAsync(httpRequest, responseHandler, -1);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(HttpRequestBase httpRequest, ResponseHandler<T> responseHandler,
+                                                  long serializeNanos) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        String route = getRoute(httpRequest);
+        try {
+            if (!inFlightLimiter.tryAcquire(route)) {
+                future.completeExceptionally(new HttpExecutionException("In-flight request limit reached for "
+                        + route, null));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new HttpExecutionException("Interrupted while waiting for in-flight slot", e));
+            return future;
+        }
+        RouteGuard routeGuard = routeGuard(route);
+        CircuitBreaker.Permit permit = routeGuard.tryAcquire();
+        if (permit == null) {
+            inFlightLimiter.release(route);
+            future.completeExceptionally(rejected(route));
+            return future;
+        }
+        EndpointCall endpointCall = loadBalancer.begin(httpRequest.getURI());
+        Timer.Context timerContext = requestTimer(httpRequest.getMethod()).time();
+        RequestTrace trace = httpConfig.isPhaseTimingEnabled() ? new RequestTrace(serializeNanos) : null;
+        Future<T> responseFuture = submitAsync(httpRequest, responseHandler, endpointCall, trace, future);
+        future.whenComplete((response, throwable) -> {
+            if (future.isCancelled()) {
+                // Cancelling the client's future aborts the exchange and closes its connection, so a hedge loser
+                // gives back its connection before its in-flight slot
+                if (responseFuture != null) {
+                    responseFuture.cancel(true);
+                }
+                endpointCall.abandon();
+                routeGuard.release(permit);
+            } else {
+                timerContext.stop();
+                endpointCall.complete(throwable == null);
+                routeGuard.onComplete(permit, endpointCall.getElapsedNanos(), endpointCall.isSucceeded());
+                if (trace != null) {
+                    recordTrace(route, httpRequest, trace);
+                }
+                // A cancelled exchange may still be writing the body on an I/O thread, so its buffer is left to the GC
+                releaseEntity(httpRequest);
+            }
+            inFlightLimiter.release(route);
+        });
+        return future;
+    }
+
+    private <T> Future<T> submitAsync(HttpRequestBase httpRequest, ResponseHandler<T> responseHandler,
+                                      EndpointCall endpointCall, RequestTrace trace, CompletableFuture<T> future) {
+        try {
+            HttpAsyncRequestProducer requestProducer = HttpAsyncMethods.create(httpRequest);
+            return closeableHttpAsyncClient.execute(
+                    trace != null ? new TracingRequestProducer(requestProducer, trace) : requestProducer,
+                    new PooledResponseConsumer<>(bufferPool, trace,
+                            endpointCall.wrap(contentCompression.decompressing(responseHandler))),
+                    trace, new FutureCallback<T>() {
+                        @Override
+                        public void completed(T response) {
+                            future.complete(response);
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            log.error("Error while executing http {} request", httpRequest.getMethod(), e);
+                            future.completeExceptionally(
+                                    new HttpExecutionException("Error while executing http request", e));
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            future.cancel(false);
+                        }
+                    });
         } catch (Exception e) {
-            log.error("Error while executing http {} request", httpRequest.getMethod(), e);
-            throw new HttpExecutionException("Error while executing http request", e);
+            log.error("Error while submitting http {} request", httpRequest.getMethod(), e);
+            future.completeExceptionally(new HttpExecutionException("Error while submitting http request", e));
+            return null;
         }
     }
 
@@ -0,0 +1,299 @@
+package clients.impl;
+
+import clients.Client;
+import clients.impl.kafka.PartitionOffsets;
+import clients.impl.kafka.RecordHandler;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import configs.ConnectionConfig;
+import configs.KafkaConsumerConfig;
+import enums.ConsumerFailurePolicy;
+import enums.ConsumerOrdering;
+import exceptions.ClientCreateException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.utils.Utils;
+import utils.MetricsRegistry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class KafkaConsumerClient extends Client {
+
+    private KafkaConsumerConfig consumerConfig;
+    private String clientKey;
+    private KafkaConsumer<byte[], byte[]> consumer;
+    private ExecutorService[] workers;
+    private Map<TopicPartition, PartitionOffsets> partitionOffsets;
+    private AtomicInteger pendingRecords;
+    private Thread pollThread;
+    private volatile boolean running;
+    private boolean paused;
+    private long lastCommitAt;
+    private Meter consumedMeter;
+    private Meter failedMeter;
+    private Timer processTimer;
+
+    public KafkaConsumerClient(ConnectionConfig connectionConfig) throws ClientCreateException {
+        super(connectionConfig);
+    }
+
+    @Override
+    protected void init(ConnectionConfig connectionConfig) {
+        this.consumerConfig = (KafkaConsumerConfig) connectionConfig;
+        // Consumers of one group on different topics are separate clients, so metrics are scoped by the client key
+        this.clientKey = consumerConfig.getClientKey();
+        log.info("Received KafkaConsumerConfig " + consumerConfig);
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, consumerConfig.getBrokerConnectionString());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, consumerConfig.getGroupId());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, consumerConfig.getAutoOffsetReset());
+        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, consumerConfig.getSessionTimeout());
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumerConfig.getMaxPollRecords());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, consumerConfig.getKeyDeserializerClass());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, consumerConfig.getValueDeserializerClass());
+        this.consumer = new KafkaConsumer<>(props);
+        this.partitionOffsets = new ConcurrentHashMap<>();
+        this.pendingRecords = new AtomicInteger();
+        this.workers = new ExecutorService[consumerConfig.getWorkerCount()];
+        for (int i = 0; i < workers.length; i++) {
+            String name = "kafka-consumer-worker-" + consumerConfig.getGroupId() + "-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.consumedMeter = MetricsRegistry.meter(KafkaConsumerClient.class, clientKey, "consumed");
+        this.failedMeter = MetricsRegistry.meter(KafkaConsumerClient.class, clientKey, "failed");
+        this.processTimer = MetricsRegistry.timer(KafkaConsumerClient.class, clientKey, "process");
+        MetricsRegistry.registerGauge(KafkaConsumerClient.class, (Gauge<Integer>) pendingRecords::get, clientKey,
+                "pending");
+    }
+
+    public synchronized void start(RecordHandler recordHandler) {
+        if (running) {
+            throw new IllegalStateException("Consumer for group " + consumerConfig.getGroupId() + " is already running");
+        }
+        running = true;
+        pollThread = new Thread(() -> pollLoop(recordHandler), "kafka-consumer-poll-" + consumerConfig.getGroupId());
+        pollThread.start();
+    }
+
+    @Override
+    protected void tearDown() {
+        running = false;
+        if (consumer == null) {
+            return;
+        }
+        consumer.wakeup();
+        if (pollThread != null) {
+            try {
+                pollThread.join(consumerConfig.getRevokeTimeout() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            consumer.close();
+        }
+        if (workers != null) {
+            for (ExecutorService worker : workers) {
+                if (worker != null) {
+                    worker.shutdownNow();
+                }
+            }
+        }
+        MetricsRegistry.removeMetrics(KafkaConsumerClient.class, clientKey);
+    }
+
+    private void pollLoop(RecordHandler recordHandler) {
+        try {
+            consumer.subscribe(consumerConfig.getTopics(), new RebalanceListener());
+            while (running) {
+                ConsumerRecords<byte[], byte[]> consumerRecords = consumer.poll(consumerConfig.getPollTimeout());
+                for (ConsumerRecord<byte[], byte[]> consumerRecord : consumerRecords) {
+                    dispatch(consumerRecord, recordHandler);
+                }
+                applyBackpressure();
+                if (System.currentTimeMillis() - lastCommitAt >= consumerConfig.getCommitInterval()) {
+                    commitAsync();
+                }
+            }
+        } catch (WakeupException e) {
+            if (running) {
+                log.error("Unexpected wakeup of kafka consumer {}", consumerConfig.getGroupId(), e);
+            }
+        } catch (Exception e) {
+            log.error("Error in kafka consumer poll loop for {}", consumerConfig.getGroupId(), e);
+        } finally {
+            awaitInFlight(partitionOffsets.keySet());
+            commitSync();
+            consumer.close();
+        }
+    }
+
+    private void dispatch(ConsumerRecord<byte[], byte[]> consumerRecord, RecordHandler recordHandler) {
+        TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+        PartitionOffsets offsets = partitionOffsets.computeIfAbsent(topicPartition, partition -> new PartitionOffsets());
+        offsets.dispatched(consumerRecord.offset());
+        pendingRecords.incrementAndGet();
+        consumedMeter.mark();
+        workers[workerIndex(consumerRecord)].execute(() -> {
+            try {
+                if (process(consumerRecord, recordHandler, topicPartition, offsets)) {
+                    offsets.completed(consumerRecord.offset());
+                }
+            } finally {
+                pendingRecords.decrementAndGet();
+            }
+        });
+    }
+
+    // Returns false when the record gave up retrying, which keeps its offset, and everything after it, uncommitted
+    private boolean process(ConsumerRecord<byte[], byte[]> consumerRecord, RecordHandler recordHandler,
+                            TopicPartition topicPartition, PartitionOffsets offsets) {
+        while (true) {
+            Timer.Context timerContext = processTimer.time();
+            try {
+                recordHandler.handle(consumerRecord);
+                return true;
+            } catch (Exception e) {
+                failedMeter.mark();
+                log.error("Error processing record {}-{}@{}", consumerRecord.topic(), consumerRecord.partition(),
+                        consumerRecord.offset(), e);
+            } finally {
+                timerContext.stop();
+            }
+            if (consumerConfig.getFailurePolicy() == ConsumerFailurePolicy.skip) {
+                return true;
+            }
+            // Stop retrying once the consumer is closing or the partition has moved to another member
+            if (!running || partitionOffsets.get(topicPartition) != offsets) {
+                return false;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(consumerConfig.getRetryBackoff());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    // Records with the same key (or partition) always land on the same worker, which processes them in order
+    private int workerIndex(ConsumerRecord<byte[], byte[]> consumerRecord) {
+        if (consumerConfig.getOrdering() == ConsumerOrdering.key && consumerRecord.key() != null) {
+            return (Utils.murmur2(consumerRecord.key()) & Integer.MAX_VALUE) % workers.length;
+        }
+        return ((consumerRecord.topic().hashCode() * 31 + consumerRecord.partition()) & Integer.MAX_VALUE) % workers.length;
+    }
+
+    private void applyBackpressure() {
+        int pending = pendingRecords.get();
+        if (pending >= consumerConfig.getMaxPendingRecords()) {
+            // Newly assigned partitions start unpaused, so the whole assignment is paused on every pass
+            consumer.pause(consumer.assignment());
+            if (!paused) {
+                paused = true;
+                MetricsRegistry.markMeter(KafkaConsumerClient.class, 1, clientKey, "paused");
+            }
+        } else if (paused && pending <= consumerConfig.getMaxPendingRecords() / 2) {
+            consumer.resume(consumer.assignment());
+            paused = false;
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> topicPartitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition topicPartition : topicPartitions) {
+            PartitionOffsets partition = partitionOffsets.get(topicPartition);
+            if (partition != null && partition.hasUncommitted()) {
+                long offset = partition.getCommittableOffset();
+                offsets.put(topicPartition, new OffsetAndMetadata(offset));
+                partition.markCommitted(offset);
+            }
+        }
+        return offsets;
+    }
+
+    private void commitAsync() {
+        lastCommitAt = System.currentTimeMillis();
+        Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(partitionOffsets.keySet());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                MetricsRegistry.markMeter(KafkaConsumerClient.class, 1, clientKey, "commitFailed");
+                log.error("Error committing offsets {}", committed, exception);
+            }
+        });
+    }
+
+    private void commitSync() {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(partitionOffsets.keySet());
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+            }
+        } catch (Exception e) {
+            log.error("Error committing offsets for {}", consumerConfig.getGroupId(), e);
+        }
+    }
+
+    private void awaitInFlight(Collection<TopicPartition> topicPartitions) {
+        long deadline = System.currentTimeMillis() + consumerConfig.getRevokeTimeout();
+        for (TopicPartition topicPartition : topicPartitions) {
+            PartitionOffsets offsets = partitionOffsets.get(topicPartition);
+            while (offsets != null && !offsets.isIdle() && System.currentTimeMillis() < deadline) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class RebalanceListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            awaitInFlight(partitions);
+            try {
+                Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(partitions);
+                if (!offsets.isEmpty()) {
+                    consumer.commitSync(offsets);
+                }
+            } catch (Exception e) {
+                log.error("Error committing offsets for revoked partitions {}", partitions, e);
+            }
+            partitions.forEach(partitionOffsets::remove);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (paused) {
+                consumer.pause(partitions);
+            }
+        }
+    }
+}
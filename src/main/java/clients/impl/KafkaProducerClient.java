@@ -1,14 +1,31 @@
 package clients.impl;
 
 import clients.Client;
+import clients.impl.kafka.JacksonRecordSerializer;
+import clients.impl.kafka.ProducerLoadController;
+import clients.impl.kafka.ProducerSelector;
+import clients.impl.kafka.RecordSerializer;
+import clients.impl.kafka.RecordSpool;
+import clients.impl.kafka.SendResultCollector;
+import clients.impl.kafka.SpoolDrainer;
+import clients.impl.kafka.StringRecordSerializer;
+import clients.impl.kafka.TypedKafkaProducer;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import configs.ConnectionConfig;
 import configs.KafkaProducerConfig;
+import exceptions.ClientCreateException;
 import exceptions.KafkaProducerException;
 import lombok.extern.slf4j.Slf4j;
+import models.SendResult;
 import org.apache.kafka.clients.producer.*;
 import org.apache.kafka.common.record.CompressionType;
+import utils.MetricsRegistry;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.*;
@@ -17,17 +34,37 @@ import java.util.stream.Collectors;
 @Slf4j
 public class KafkaProducerClient extends Client {
 
-    private LinkedBlockingQueue<Producer<byte[], byte[]>> producers;
+    private ProducerSelector producerSelector;
+    private ProducerLoadController loadController;
+    private RecordSpool recordSpool;
+    private SpoolDrainer spoolDrainer;
+    private String clientKey;
+    private String defaultTopic;
+    private TypedKafkaProducer<Object, Object> defaultTypedProducer;
+    private Meter typedFailedMeter;
+    private Meter sentMeter;
+    private Meter ackedMeter;
+    private Meter failedMeter;
+    private Meter spooledMeter;
+    private Meter replayedMeter;
 
-    public KafkaProducerClient(ConnectionConfig connectionConfig) {
+    public KafkaProducerClient(ConnectionConfig connectionConfig) throws ClientCreateException {
         super(connectionConfig);
     }
 
     @Override
-    protected void init(ConnectionConfig connectionConfig) {
+    protected void init(ConnectionConfig connectionConfig) throws ClientCreateException {
         if (connectionConfig instanceof KafkaProducerConfig) {
             KafkaProducerConfig kafkaConfig = (KafkaProducerConfig) connectionConfig;
             log.info("Received KafkaProducerConfig " + connectionConfig);
+            // Several producers can live in one JVM, so every metric is scoped by the client key
+            clientKey = kafkaConfig.getClientKey();
+            typedFailedMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "typed", "failed");
+            sentMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "async", "sent");
+            ackedMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "async", "acked");
+            failedMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "async", "failed");
+            spooledMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "async", "spooled");
+            replayedMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "async", "replayed");
             Properties props = new Properties();
             props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfig.getBrokerConnectionString());
             props.put(ProducerConfig.ACKS_CONFIG, kafkaConfig.getAckConfig());
@@ -43,80 +80,217 @@ public class KafkaProducerClient extends Client {
             props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, kafkaConfig.getValueSerializerClass());
             props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, CompressionType.forName(kafkaConfig.getCompressionType()).name);
             log.info("Received KafkaProducerConfig producersCount : " + kafkaConfig.getProducersCount());
-            producers = new LinkedBlockingQueue<>(kafkaConfig.getProducersCount());
-            for (int i = 0; i < kafkaConfig.getProducersCount(); i++) {
-                producers.add(new KafkaProducer<>(props));
+            List<Producer<byte[], byte[]>> producers = new ArrayList<>(kafkaConfig.getProducersCount());
+            try {
+                for (int i = 0; i < kafkaConfig.getProducersCount(); i++) {
+                    producers.add(new KafkaProducer<>(props));
+                }
+            } catch (RuntimeException e) {
+                // The selector does not exist yet, so tearDown cannot see the producers that were already created
+                producers.forEach(Producer::close);
+                throw e;
+            }
+            producerSelector = new ProducerSelector(producers, kafkaConfig.getProducerSelectionStrategy());
+            loadController = new ProducerLoadController(clientKey, producerSelector, kafkaConfig.getMaxBytesInBuffer(),
+                    kafkaConfig.getBufferHighWatermark(), kafkaConfig.getMaxRecordQueueTimeMs(),
+                    kafkaConfig.getMinActiveProducers(), kafkaConfig.isAdaptiveProducerCountEnabled());
+            loadController.start(kafkaConfig.getLoadSampleInterval());
+            defaultTopic = kafkaConfig.getTopicName();
+            defaultTypedProducer = new TypedKafkaProducer<>(this, StringRecordSerializer.INSTANCE,
+                    JacksonRecordSerializer.json());
+            if (kafkaConfig.isSpoolEnabled()) {
+                initSpool(kafkaConfig);
             }
         } else {
-            log.error("Wrong configs provided");
+            throw new ClientCreateException("Wrong configs provided, expected KafkaProducerConfig but got "
+                    + (connectionConfig == null ? null : connectionConfig.getClass().getSimpleName()), null);
+        }
+    }
+
+    private void initSpool(KafkaProducerConfig kafkaConfig) throws ClientCreateException {
+        // spoolPath is the root shared by all producers, each one spools into a directory named after its client key
+        File spoolDirectory = new File(kafkaConfig.getSpoolPath(), clientKey.replaceAll("[^A-Za-z0-9._-]", "_"));
+        try {
+            recordSpool = new RecordSpool(spoolDirectory.getPath(), kafkaConfig.getSpoolSegmentSize());
+        } catch (IOException e) {
+            throw new ClientCreateException("Error opening kafka spool at " + spoolDirectory, e);
         }
+        MetricsRegistry.registerGauge(KafkaProducerClient.class, (Gauge<Long>) recordSpool::getPendingBytes,
+                clientKey, "spool", "pendingBytes");
+        spoolDrainer = new SpoolDrainer(recordSpool, this::replay, kafkaConfig.getSpoolDrainRatePerSecond(),
+                kafkaConfig.getSpoolDrainInterval());
+        spoolDrainer.start(kafkaConfig.getSpoolDrainInterval());
     }
 
     @Override
     protected void tearDown() {
+        if (loadController != null) {
+            loadController.stop();
+        }
+        if (spoolDrainer != null) {
+            spoolDrainer.stop();
+        }
         try {
-            producers.forEach(Producer::close);
+            if (producerSelector != null) {
+                Arrays.stream(producerSelector.getProducers()).forEach(Producer::close);
+            }
         } catch (Exception e) {
             log.error("Error closing kafka producer client");
         }
+        if (recordSpool != null) {
+            recordSpool.close();
+            MetricsRegistry.removeMetrics(KafkaProducerClient.class, clientKey, "spool");
+        }
+    }
+
+    private Future<RecordMetadata> send(Producer<byte[], byte[]> producer, ProducerRecord<byte[], byte[]> producerRecord,
+                                        Callback callback) {
+        int size = sizeOf(producerRecord);
+        loadController.acquire(size);
+        return send(producer, producerRecord, size, callback);
     }
 
-    private Producer<byte[], byte[]> getProducer() throws Exception {
+    private Future<RecordMetadata> send(Producer<byte[], byte[]> producer, ProducerRecord<byte[], byte[]> producerRecord,
+                                        int size, Callback callback) {
         try {
-            return producers.poll(10, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            log.error("Error getting producer");
+            return producerSelector.select(producerRecord.key(), producer).send(producerRecord, (recordMetadata, exception) -> {
+                loadController.release(size);
+                if (callback != null) {
+                    callback.onCompletion(recordMetadata, exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            loadController.release(size);
             throw e;
         }
     }
 
-    private void returnProducer(Producer<byte[], byte[]> producer) throws Exception {
-        try {
-            producers.put(producer);
-        } catch (InterruptedException e) {
-            log.error("Error returning producer");
-            throw e;
+    private static int sizeOf(ProducerRecord<byte[], byte[]> producerRecord) {
+        return (producerRecord.key() == null ? 0 : producerRecord.key().length)
+                + (producerRecord.value() == null ? 0 : producerRecord.value().length);
+    }
+
+    public boolean trySend(ProducerRecord<byte[], byte[]> producerRecord, Callback callback) {
+        int size = sizeOf(producerRecord);
+        if (!loadController.tryAcquire(size)) {
+            return false;
         }
+        send(producerSelector.select(), producerRecord, size, callback);
+        return true;
+    }
+
+    public boolean isSaturated() {
+        return loadController.isSaturated();
+    }
+
+    public String getDefaultTopic() {
+        return defaultTopic;
+    }
+
+    public <K, V> TypedKafkaProducer<K, V> typed(RecordSerializer<? super K> keySerializer,
+                                                 RecordSerializer<? super V> valueSerializer) {
+        return new TypedKafkaProducer<>(this, keySerializer, valueSerializer);
+    }
+
+    public CompletableFuture<RecordMetadata> send(Object key, Object value) {
+        return defaultTypedProducer.send(key, value);
+    }
+
+    public CompletableFuture<RecordMetadata> send(String topic, Object key, Object value) {
+        return defaultTypedProducer.send(topic, key, value);
     }
 
-    public void sendToKafkaSync(List<ProducerRecord<byte[], byte[]>> producerRecords) throws KafkaProducerException {
+    public CompletableFuture<RecordMetadata> send(String topic, byte[] key, byte[] value) {
+        CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+        if (topic == null) {
+            future.completeExceptionally(new IllegalArgumentException("No topic given and no default topicName configured"));
+            return future;
+        }
+        ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(topic, key, value);
         try {
-            Producer<byte[], byte[]> producer = getProducer();
-            try {
-                List<Future<RecordMetadata>> futureList = producerRecords.stream().map(producer::send).collect(Collectors.toList());
-                List<ProducerRecord<byte[], byte[]>> failedRecords = new ArrayList<>();
-                int size = producerRecords.size();
-                for (int i = 0; i < size; i++) {
-                    try {
-                        futureList.get(i).get();
-                    } catch (InterruptedException | ExecutionException e) {
-                        failedRecords.add(producerRecords.get(i));
-                    }
+            send(producerSelector.select(), producerRecord, (recordMetadata, exception) -> {
+                if (exception != null) {
+                    typedFailedMeter.mark();
+                    future.completeExceptionally(exception);
+                } else {
+                    future.complete(recordMetadata);
                 }
+            });
+        } catch (Exception e) {
+            log.error("Error sending record", e);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 
-                if (!failedRecords.isEmpty()) {
-                    throw new KafkaProducerException("Failed records", failedRecords);
-                }
-            } finally {
-                returnProducer(producer);
+    public CompletableFuture<SendResult> sendToKafkaSync(List<ProducerRecord<byte[], byte[]>> producerRecords) {
+        Producer<byte[], byte[]> producer = producerSelector.select();
+        SendResultCollector collector = new SendResultCollector(producerRecords);
+        int size = producerRecords.size();
+        for (int i = 0; i < size; i++) {
+            try {
+                send(producer, producerRecords.get(i), collector.callback(i));
+            } catch (Exception e) {
+                // send() throws for records that never reach the accumulator, so no callback will follow
+                log.error("Error sending record", e);
+                collector.onCompletion(i, null, e);
             }
-        } catch (Exception e) {
-            log.error("error getting producer");
-            throw new KafkaProducerException("Error getting producer", e);
         }
+        return collector.getFuture();
     }
 
     public void sendToKafkaAsync(List<ProducerRecord<byte[], byte[]>> producerRecords) throws KafkaProducerException {
-        try {
-            Producer<byte[], byte[]> producer = getProducer();
+        Producer<byte[], byte[]> producer = producerSelector.select();
+        List<ProducerRecord<byte[], byte[]>> failedRecords = new ArrayList<>();
+        Exception lastError = null;
+        for (ProducerRecord<byte[], byte[]> producerRecord : producerRecords) {
             try {
-                producerRecords.forEach(producer::send);
-            } finally {
-                returnProducer(producer);
+                send(producer, producerRecord, deliveryCallback(producerRecord));
+                sentMeter.mark();
+            } catch (Exception e) {
+                log.error("Error sending record", e);
+                lastError = e;
+                if (!spool(producerRecord)) {
+                    failedRecords.add(producerRecord);
+                }
             }
-        } catch (Exception e) {
-            log.error("error getting producer");
-            throw new KafkaProducerException("error getting producer", e);
         }
+        if (!failedRecords.isEmpty()) {
+            throw new KafkaProducerException("Failed records", lastError, failedRecords);
+        }
+    }
+
+    private Callback deliveryCallback(ProducerRecord<byte[], byte[]> producerRecord) {
+        return (recordMetadata, exception) -> {
+            if (exception == null) {
+                ackedMeter.mark();
+                return;
+            }
+            failedMeter.mark();
+            if (!spool(producerRecord)) {
+                log.error("Dropping record for topic {} after failed delivery", producerRecord.topic(), exception);
+            }
+        };
+    }
+
+    private boolean spool(ProducerRecord<byte[], byte[]> producerRecord) {
+        if (recordSpool == null || !recordSpool.append(producerRecord)) {
+            return false;
+        }
+        spooledMeter.mark();
+        return true;
+    }
+
+    // A failed replay stays at the head of the spool and is retried by the next drain, never spooled again
+    private void replay(ProducerRecord<byte[], byte[]> producerRecord, Callback callback) {
+        replayedMeter.mark();
+        send(producerSelector.select(), producerRecord, (recordMetadata, exception) -> {
+            if (exception == null) {
+                ackedMeter.mark();
+            } else {
+                failedMeter.mark();
+            }
+            callback.onCompletion(recordMetadata, exception);
+        });
     }
 }
@@ -0,0 +1,42 @@
+package clients.impl.http;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BufferPool {
+
+    private final Queue<PooledBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int maxPooled;
+    private final int bufferSize;
+    private final int maxRetainedSize;
+
+    public BufferPool(int maxPooled, int bufferSize, int maxRetainedSize) {
+        this.maxPooled = maxPooled;
+        this.bufferSize = bufferSize;
+        this.maxRetainedSize = maxRetainedSize;
+    }
+
+    public PooledBuffer acquire() {
+        PooledBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return new PooledBuffer(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    public void release(PooledBuffer buffer) {
+        // Buffers grown for an unusually large body are left to the GC rather than pinning the memory
+        if (buffer.capacity() > maxRetainedSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.reset();
+        buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,73 @@
+package clients.impl.http;
+
+import lombok.Getter;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+
+@Getter
+public class CachedResponse {
+
+    static final long NOT_CACHEABLE = 0;
+    static final long DEFAULT_TTL = -1;
+
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final byte[] body;
+    private final ContentType contentType;
+    private final long maxAgeMs;
+
+    private CachedResponse(int statusCode, String reasonPhrase, byte[] body, ContentType contentType, long maxAgeMs) {
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase;
+        this.body = body;
+        this.contentType = contentType;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public static CachedResponse from(HttpResponse response) throws IOException {
+        byte[] body = response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : new byte[0];
+        ContentType contentType = response.getEntity() != null ? ContentType.get(response.getEntity()) : null;
+        int statusCode = response.getStatusLine().getStatusCode();
+        long maxAgeMs = statusCode == HttpStatus.SC_OK ? getMaxAge(response) : NOT_CACHEABLE;
+        return new CachedResponse(statusCode, response.getStatusLine().getReasonPhrase(), body, contentType, maxAgeMs);
+    }
+
+    public HttpResponse toHttpResponse() {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, reasonPhrase);
+        response.setEntity(new ByteArrayEntity(body, contentType));
+        return response;
+    }
+
+    public int getWeight() {
+        return body.length + 64;
+    }
+
+    private static long getMaxAge(HttpResponse response) {
+        for (Header header : response.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+            for (HeaderElement element : header.getElements()) {
+                String directive = element.getName().toLowerCase();
+                if ("no-store".equals(directive) || "no-cache".equals(directive) || "private".equals(directive)) {
+                    return NOT_CACHEABLE;
+                }
+                if ("max-age".equals(directive) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue().trim()) * 1000;
+                    } catch (NumberFormatException e) {
+                        return NOT_CACHEABLE;
+                    }
+                }
+            }
+        }
+        return DEFAULT_TTL;
+    }
+}
@@ -0,0 +1,157 @@
+package clients.impl.http;
+
+import enums.CircuitBreakerState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+public class CircuitBreaker {
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumRequests;
+    private final long openTime;
+    private final int halfOpenRequests;
+    private final AtomicIntegerArray outcomes;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<CircuitBreakerState> state = new AtomicReference<>(CircuitBreakerState.closed);
+    private volatile long openUntil;
+
+    public CircuitBreaker(String name, int failureRateThreshold, int windowSize, int minimumRequests, long openTime,
+                          int halfOpenRequests) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.openTime = openTime;
+        this.halfOpenRequests = halfOpenRequests;
+        this.outcomes = new AtomicIntegerArray(windowSize);
+    }
+
+    public CircuitBreakerState getState() {
+        return state.get();
+    }
+
+    /**
+     * Returns the permit to hand back to {@link #onComplete} or {@link #release}, or null when the request is
+     * rejected. Only permits taken while half open count towards closing the breaker again.
+     */
+    public Permit tryAcquire() {
+        switch (state.get()) {
+            case closed:
+                return Permit.UNTRACKED;
+            case open:
+                if (System.currentTimeMillis() < openUntil) {
+                    return null;
+                }
+                if (state.compareAndSet(CircuitBreakerState.open, CircuitBreakerState.halfOpen)) {
+                    halfOpenSuccesses.set(0);
+                    halfOpenPermits.set(halfOpenRequests);
+                }
+                return tryAcquire();
+            case halfOpen:
+            default:
+                // Rejected callers must not push the count below zero, or released probe slots would be lost
+                int permits;
+                do {
+                    permits = halfOpenPermits.get();
+                    if (permits <= 0) {
+                        return null;
+                    }
+                } while (!halfOpenPermits.compareAndSet(permits, permits - 1));
+                return new Permit(generation.get());
+        }
+    }
+
+    public void onComplete(Permit permit, boolean success) {
+        CircuitBreakerState current = state.get();
+        if (current == CircuitBreakerState.halfOpen) {
+            // Requests admitted before the trip say nothing about whether the route has recovered
+            if (!isProbe(permit)) {
+                return;
+            }
+            if (!success) {
+                trip(CircuitBreakerState.halfOpen);
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenRequests
+                    && state.compareAndSet(CircuitBreakerState.halfOpen, CircuitBreakerState.closed)) {
+                log.info("Circuit breaker {} closed", name);
+                generation.incrementAndGet();
+                reset();
+            }
+            return;
+        }
+        if (current != CircuitBreakerState.closed) {
+            return;
+        }
+        int slot = (cursor.getAndIncrement() & Integer.MAX_VALUE) % outcomes.length();
+        int previous = outcomes.getAndSet(slot, success ? SUCCESS : FAILURE);
+        if (previous == EMPTY) {
+            recorded.incrementAndGet();
+        } else if (previous == FAILURE) {
+            failures.decrementAndGet();
+        }
+        int failed = success ? failures.get() : failures.incrementAndGet();
+        int total = recorded.get();
+        if (total >= minimumRequests && failed * 100 >= failureRateThreshold * total) {
+            trip(CircuitBreakerState.closed);
+        }
+    }
+
+    // An abandoned probe gives its slot to the next caller
+    public void release(Permit permit) {
+        if (state.get() == CircuitBreakerState.halfOpen && isProbe(permit)) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    private boolean isProbe(Permit permit) {
+        return permit.probe && permit.generation == generation.get();
+    }
+
+    private void trip(CircuitBreakerState from) {
+        if (state.compareAndSet(from, CircuitBreakerState.open)) {
+            halfOpenPermits.set(0);
+            generation.incrementAndGet();
+            openUntil = System.currentTimeMillis() + openTime;
+            log.error("Circuit breaker {} opened for {} ms", name, openTime);
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < outcomes.length(); i++) {
+            outcomes.set(i, EMPTY);
+        }
+        recorded.set(0);
+        failures.set(0);
+    }
+
+    public static final class Permit {
+
+        static final Permit UNTRACKED = new Permit();
+
+        private final boolean probe;
+        private final int generation;
+
+        private Permit() {
+            this.probe = false;
+            this.generation = 0;
+        }
+
+        private Permit(int generation) {
+            this.probe = true;
+            this.generation = generation;
+        }
+    }
+}
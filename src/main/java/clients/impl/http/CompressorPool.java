@@ -0,0 +1,82 @@
+package clients.impl.http;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflaters and inflaters hold native zlib state that is only freed by {@code end()} or a finalizer, so they are reset
+ * and reused instead of being created per request. Raw (nowrap) instances serve gzip, whose header and trailer are
+ * written by hand, and wrapped instances serve zlib framed deflate.
+ */
+public class CompressorPool {
+
+    private final Pool<Deflater> rawDeflaters;
+    private final Pool<Deflater> zlibDeflaters;
+    private final Pool<Inflater> rawInflaters;
+    private final Pool<Inflater> zlibInflaters;
+
+    public CompressorPool(int maxPooled, int level) {
+        this.rawDeflaters = new Pool<>(maxPooled, () -> new Deflater(level, true), Deflater::reset, Deflater::end);
+        this.zlibDeflaters = new Pool<>(maxPooled, () -> new Deflater(level, false), Deflater::reset, Deflater::end);
+        this.rawInflaters = new Pool<>(maxPooled, () -> new Inflater(true), Inflater::reset, Inflater::end);
+        this.zlibInflaters = new Pool<>(maxPooled, () -> new Inflater(false), Inflater::reset, Inflater::end);
+    }
+
+    public Deflater acquireDeflater(boolean nowrap) {
+        return (nowrap ? rawDeflaters : zlibDeflaters).acquire();
+    }
+
+    public void release(Deflater deflater, boolean nowrap) {
+        (nowrap ? rawDeflaters : zlibDeflaters).release(deflater);
+    }
+
+    public Inflater acquireInflater(boolean nowrap) {
+        return (nowrap ? rawInflaters : zlibInflaters).acquire();
+    }
+
+    public void release(Inflater inflater, boolean nowrap) {
+        (nowrap ? rawInflaters : zlibInflaters).release(inflater);
+    }
+
+    private static class Pool<T> {
+
+        private final Queue<T> items = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pooled = new AtomicInteger();
+        private final int maxPooled;
+        private final Supplier<T> factory;
+        private final Consumer<T> reset;
+        private final Consumer<T> end;
+
+        Pool(int maxPooled, Supplier<T> factory, Consumer<T> reset, Consumer<T> end) {
+            this.maxPooled = maxPooled;
+            this.factory = factory;
+            this.reset = reset;
+            this.end = end;
+        }
+
+        T acquire() {
+            T item = items.poll();
+            if (item == null) {
+                return factory.get();
+            }
+            pooled.decrementAndGet();
+            return item;
+        }
+
+        void release(T item) {
+            // Surplus instances free their native memory right away rather than waiting on the finalizer
+            if (pooled.incrementAndGet() > maxPooled) {
+                pooled.decrementAndGet();
+                end.accept(item);
+                return;
+            }
+            reset.accept(item);
+            items.offer(item);
+        }
+    }
+}
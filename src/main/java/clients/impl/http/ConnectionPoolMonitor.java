@@ -0,0 +1,88 @@
+package clients.impl.http;
+
+import clients.impl.HttpClient;
+import com.codahale.metrics.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import utils.MetricsRegistry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class ConnectionPoolMonitor {
+
+    private final String clientName;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private final long idleConnectionTimeout;
+    private final Set<String> registeredRoutes = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    public ConnectionPoolMonitor(String clientName, PoolingHttpClientConnectionManager connectionManager,
+                                 PoolingNHttpClientConnectionManager asyncConnectionManager,
+                                 long idleConnectionTimeout) {
+        this.clientName = clientName;
+        this.connectionManager = connectionManager;
+        this.asyncConnectionManager = asyncConnectionManager;
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public void start(long evictionInterval) {
+        registerGauges("sync", "total", connectionManager, null);
+        registerGauges("async", "total", asyncConnectionManager, null);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-pool-monitor-" + clientName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        MetricsRegistry.removeMetrics(HttpClient.class, "pool", clientName);
+    }
+
+    private void run() {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS);
+            asyncConnectionManager.closeExpiredConnections();
+            asyncConnectionManager.closeIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS);
+            connectionManager.getRoutes().forEach(route -> registerRoute("sync", connectionManager, route));
+            asyncConnectionManager.getRoutes().forEach(route -> registerRoute("async", asyncConnectionManager, route));
+        } catch (Exception e) {
+            log.error("Error while evicting http connections for {}", clientName, e);
+        }
+    }
+
+    private void registerRoute(String pool, ConnPoolControl<HttpRoute> control, HttpRoute route) {
+        String routeName = route.getTargetHost().toHostString();
+        if (registeredRoutes.add(pool + routeName)) {
+            registerGauges(pool, routeName, control, route);
+        }
+    }
+
+    private void registerGauges(String pool, String routeName, ConnPoolControl<HttpRoute> control, HttpRoute route) {
+        MetricsRegistry.registerGauge(HttpClient.class, (Gauge<Integer>) () -> stats(control, route).getLeased(),
+                "pool", clientName, pool, routeName, "leased");
+        MetricsRegistry.registerGauge(HttpClient.class, (Gauge<Integer>) () -> stats(control, route).getAvailable(),
+                "pool", clientName, pool, routeName, "available");
+        MetricsRegistry.registerGauge(HttpClient.class, (Gauge<Integer>) () -> stats(control, route).getPending(),
+                "pool", clientName, pool, routeName, "pending");
+    }
+
+    private PoolStats stats(ConnPoolControl<HttpRoute> control, HttpRoute route) {
+        return route == null ? control.getTotalStats() : control.getStats(route);
+    }
+}
@@ -0,0 +1,385 @@
+package clients.impl.http;
+
+import enums.ContentCoding;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Compresses request bodies at or above the threshold and inflates gzip or deflate encoded responses, with the zlib
+ * state coming from a {@link CompressorPool} and the working buffers from a {@link BufferPool}. Both clients run
+ * with their built-in content decoding off, so this is the only place a response is decompressed.
+ */
+public class ContentCompression {
+
+    private static final String ACCEPT_ENCODING = ContentCoding.gzip + ", " + ContentCoding.deflate;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final ContentCoding requestCoding;
+    private final int threshold;
+    private final boolean decompressResponses;
+    private final CompressorPool compressorPool;
+    private final BufferPool bufferPool;
+
+    public ContentCompression(ContentCoding requestCoding, int threshold, boolean decompressResponses,
+                              CompressorPool compressorPool, BufferPool bufferPool) {
+        this.requestCoding = requestCoding;
+        this.threshold = threshold;
+        this.decompressResponses = decompressResponses;
+        this.compressorPool = compressorPool;
+        this.bufferPool = bufferPool;
+    }
+
+    public HttpEntity compress(HttpEntity entity) throws IOException {
+        if (requestCoding == ContentCoding.identity || entity == null || entity.getContentEncoding() != null) {
+            return entity;
+        }
+        long contentLength = entity.getContentLength();
+        if (contentLength >= 0 && contentLength < threshold) {
+            return entity;
+        }
+        PooledBuffer body = bufferPool.acquire();
+        try {
+            entity.writeTo(body.outputStream());
+            // A streamed body only reveals its size once written. A small one is sent as it came and written again,
+            // which is cheap below the threshold, unless it cannot be written twice
+            if (body.size() < threshold) {
+                if (entity.isRepeatable()) {
+                    return entity;
+                }
+                PooledEntity pooledEntity = new PooledEntity(body, entity, null);
+                body = null;
+                return pooledEntity;
+            }
+            PooledBuffer compressed = bufferPool.acquire();
+            try {
+                deflate(body, compressed);
+                PooledEntity pooledEntity = new PooledEntity(compressed, entity, requestCoding.name());
+                compressed = null;
+                return pooledEntity;
+            } finally {
+                if (compressed != null) {
+                    bufferPool.release(compressed);
+                }
+            }
+        } finally {
+            if (body != null) {
+                bufferPool.release(body);
+            }
+        }
+    }
+
+    // The entity must not be sent again once its buffer is back in the pool
+    public void release(HttpEntity entity) {
+        if (entity instanceof PooledEntity) {
+            ((PooledEntity) entity).release();
+        }
+    }
+
+    private void deflate(PooledBuffer body, PooledBuffer compressed) {
+        boolean gzip = requestCoding == ContentCoding.gzip;
+        Deflater deflater = compressorPool.acquireDeflater(gzip);
+        try {
+            if (gzip) {
+                compressed.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+            deflater.setInput(body.array(), 0, body.size());
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed.deflate(deflater);
+            }
+            if (gzip) {
+                CRC32 crc = new CRC32();
+                crc.update(body.array(), 0, body.size());
+                byte[] trailer = new byte[8];
+                writeIntLE(trailer, 0, (int) crc.getValue());
+                writeIntLE(trailer, 4, body.size());
+                compressed.write(trailer, 0, trailer.length);
+            }
+        } finally {
+            compressorPool.release(deflater, gzip);
+        }
+    }
+
+    private static void writeIntLE(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >> 8);
+        bytes[offset + 2] = (byte) (value >> 16);
+        bytes[offset + 3] = (byte) (value >> 24);
+    }
+
+    public void acceptEncoding(HttpRequest request) {
+        if (decompressResponses && !request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        }
+    }
+
+    // The async consumer rebuilds the entity without its encoding, so the coding is taken from the response header
+    public <T> ResponseHandler<T> decompressing(ResponseHandler<T> responseHandler) {
+        if (!decompressResponses) {
+            return responseHandler;
+        }
+        return response -> {
+            Header contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+            if (contentEncoding != null && response.getEntity() != null) {
+                ContentCoding coding = ContentCoding.fromHeader(contentEncoding.getValue());
+                if (coding == ContentCoding.gzip || coding == ContentCoding.deflate) {
+                    response.setEntity(new InflatingEntity(response.getEntity(), coding));
+                    response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+                    response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+                    response.removeHeaders(HttpHeaders.CONTENT_MD5);
+                }
+            }
+            return responseHandler.handleResponse(response);
+        };
+    }
+
+    private class PooledEntity extends ByteBufferEntity {
+
+        private PooledBuffer buffer;
+
+        PooledEntity(PooledBuffer buffer, HttpEntity entity, String contentEncoding) {
+            super(ByteBuffer.wrap(buffer.array(), 0, buffer.size()), contentType(entity));
+            this.buffer = buffer;
+            setContentEncoding(contentEncoding);
+        }
+
+        synchronized void release() {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    private static String contentType(HttpEntity entity) {
+        Header contentType = entity.getContentType();
+        return contentType != null ? contentType.getValue() : PayloadEntities.APPLICATION_JSON;
+    }
+
+    private class InflatingEntity extends HttpEntityWrapper {
+
+        private final ContentCoding coding;
+
+        InflatingEntity(HttpEntity entity, ContentCoding coding) {
+            super(entity);
+            this.coding = coding;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new InflatingInputStream(super.getContent(), coding == ContentCoding.gzip);
+        }
+
+        @Override
+        public void writeTo(OutputStream outstream) throws IOException {
+            try (InputStream content = getContent()) {
+                byte[] chunk = new byte[4096];
+                int count;
+                while ((count = content.read(chunk)) != -1) {
+                    outstream.write(chunk, 0, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inflates straight from the raw entity stream. The inflater and input buffer are taken on the first read and go
+     * back to their pools at the end of the body or on close, whichever comes first.
+     */
+    private class InflatingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final boolean gzip;
+        private final byte[] single = new byte[1];
+        private CRC32 crc;
+        private PooledBuffer input;
+        private Inflater inflater;
+        private boolean nowrap;
+        private int inputLength;
+        private int trailerOffset;
+        private boolean eof;
+
+        InflatingInputStream(InputStream in, boolean gzip) {
+            this.in = in;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (inflater == null) {
+                start();
+            }
+            try {
+                int count;
+                while ((count = inflater.inflate(bytes, offset, length)) == 0) {
+                    if (inflater.finished()) {
+                        finish();
+                        return -1;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Compressed response body needs a preset dictionary");
+                    }
+                    if (inflater.needsInput()) {
+                        fill();
+                    }
+                }
+                if (crc != null) {
+                    crc.update(bytes, offset, count);
+                }
+                return count;
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed response body: " + e.getMessage());
+            }
+        }
+
+        private void start() throws IOException {
+            input = bufferPool.acquire();
+            if (gzip) {
+                readGzipHeader();
+                crc = new CRC32();
+                nowrap = true;
+                inflater = compressorPool.acquireInflater(true);
+                return;
+            }
+            // Some servers send raw deflate for Content-Encoding: deflate, so the zlib header is checked, not assumed
+            int first = readByte();
+            int second = readByte();
+            nowrap = (first & 0x0f) != Deflater.DEFLATED || ((first << 8) | second) % 31 != 0;
+            inflater = compressorPool.acquireInflater(nowrap);
+            input.array()[0] = (byte) first;
+            input.array()[1] = (byte) second;
+            inputLength = 2;
+            inflater.setInput(input.array(), 0, inputLength);
+        }
+
+        private void fill() throws IOException {
+            inputLength = in.read(input.array(), 0, input.capacity());
+            if (inputLength == -1) {
+                throw new EOFException("Unexpected end of compressed response body");
+            }
+            inflater.setInput(input.array(), 0, inputLength);
+        }
+
+        private void readGzipHeader() throws IOException {
+            if ((readByte() | readByte() << 8) != GZIP_MAGIC || readByte() != Deflater.DEFLATED) {
+                throw new ZipException("Response body is not in gzip format");
+            }
+            int flags = readByte();
+            skip(6);
+            if ((flags & FEXTRA) != 0) {
+                skip(readByte() | readByte() << 8);
+            }
+            if ((flags & FNAME) != 0) {
+                skipString();
+            }
+            if ((flags & FCOMMENT) != 0) {
+                skipString();
+            }
+            if ((flags & FHCRC) != 0) {
+                skip(2);
+            }
+        }
+
+        private void finish() throws IOException {
+            if (gzip) {
+                // The trailer starts in whatever input the inflater did not consume
+                trailerOffset = inputLength - inflater.getRemaining();
+                long expectedCrc = readTrailerInt() & 0xffffffffL;
+                int expectedSize = readTrailerInt();
+                if (expectedCrc != crc.getValue() || expectedSize != (int) inflater.getBytesWritten()) {
+                    throw new ZipException("Corrupt gzip trailer in response body");
+                }
+            }
+            eof = true;
+            release();
+        }
+
+        private int readTrailerInt() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = trailerOffset < inputLength ? input.array()[trailerOffset++] & 0xFF : readByte();
+                value |= b << (8 * i);
+            }
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of compressed response body");
+            }
+            return b;
+        }
+
+        private void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                readByte();
+            }
+        }
+
+        private void skipString() throws IOException {
+            while (readByte() != 0) {
+                // zero terminated
+            }
+        }
+
+        private void release() {
+            if (inflater != null) {
+                compressorPool.release(inflater, nowrap);
+                inflater = null;
+            }
+            if (input != null) {
+                bufferPool.release(input);
+                input = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            eof = true;
+            release();
+            in.close();
+        }
+    }
+}
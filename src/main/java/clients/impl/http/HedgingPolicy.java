@@ -0,0 +1,53 @@
+package clients.impl.http;
+
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+public class HedgingPolicy {
+
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    private final Timer latencyTimer;
+    private final double percentile;
+    private final long minDelayMs;
+    private volatile long delayMs;
+    private volatile long refreshAt;
+
+    public HedgingPolicy(Timer latencyTimer, double percentile, long minDelayMs) {
+        this.latencyTimer = latencyTimer;
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.delayMs = minDelayMs;
+    }
+
+    public long getDelayMillis() {
+        long now = System.currentTimeMillis();
+        // A snapshot copies and merges the reservoir's histograms, so the delay is only recomputed once a second
+        if (now >= refreshAt) {
+            refreshAt = now + REFRESH_INTERVAL_MS;
+            long percentileMs = TimeUnit.NANOSECONDS.toMillis(
+                    (long) latencyTimer.getSnapshot().getValue(percentile));
+            delayMs = Math.max(minDelayMs, percentileMs);
+        }
+        return delayMs;
+    }
+
+    public static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<T, Throwable> onComplete = (result, throwable) -> {
+            if (throwable == null) {
+                winner.complete(result);
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(throwable);
+            }
+        };
+        first.whenComplete(onComplete);
+        second.whenComplete(onComplete);
+        return winner;
+    }
+}
@@ -0,0 +1,48 @@
+package clients.impl.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class InFlightLimiter {
+
+    private final Semaphore clientPermits;
+    private final ConcurrentMap<String, Semaphore> routePermits = new ConcurrentHashMap<>();
+    private final int maxInFlightPerRoute;
+    private final long acquireTimeoutMs;
+
+    public InFlightLimiter(int maxInFlight, int maxInFlightPerRoute, long acquireTimeoutMs) {
+        this.clientPermits = new Semaphore(maxInFlight);
+        this.maxInFlightPerRoute = maxInFlightPerRoute;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    public boolean tryAcquire(String route) throws InterruptedException {
+        if (!acquire(clientPermits)) {
+            return false;
+        }
+        if (!acquire(routePermits(route))) {
+            clientPermits.release();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(String route) {
+        routePermits(route).release();
+        clientPermits.release();
+    }
+
+    private boolean acquire(Semaphore semaphore) throws InterruptedException {
+        // A timeout of 0 rejects straight away instead of blocking the caller
+        if (acquireTimeoutMs <= 0) {
+            return semaphore.tryAcquire();
+        }
+        return semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Semaphore routePermits(String route) {
+        return routePermits.computeIfAbsent(route, key -> new Semaphore(maxInFlightPerRoute));
+    }
+}
@@ -0,0 +1,56 @@
+package clients.impl.http;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class JsonEntity extends AbstractHttpEntity {
+
+    private final ObjectWriter writer;
+    private final Object payload;
+
+    public JsonEntity(ObjectWriter writer, Object payload) {
+        this(writer, payload, PayloadEntities.APPLICATION_JSON);
+    }
+
+    // The writer's factory decides the encoding, so the same entity streams Smile or CBOR as well
+    public JsonEntity(ObjectWriter writer, Object payload, String contentType) {
+        this.writer = writer;
+        this.payload = payload;
+        setContentType(contentType);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ByteArrayInputStream(writer.writeValueAsBytes(payload));
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        try (JsonGenerator generator = writer.getFactory().createGenerator(outstream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writer.writeValue(generator, payload);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
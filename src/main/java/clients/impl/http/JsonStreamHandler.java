@@ -0,0 +1,10 @@
+package clients.impl.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface JsonStreamHandler<T> {
+    T handle(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,45 @@
+package clients.impl.http;
+
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public final class JsonStreamHandlers {
+
+    private JsonStreamHandlers() {
+    }
+
+    public static JsonStreamHandler<Map<String, Object>> selectFields(String objectField, String... fields) {
+        Set<String> wanted = new HashSet<>(Arrays.asList(fields));
+        return parser -> {
+            Map<String, Object> selected = new HashMap<>();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return selected;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (!objectField.equals(name) || token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME && selected.size() < wanted.size()) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (wanted.contains(field)) {
+                        selected.put(field, parser.readValueAs(Object.class));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                // The rest of the body is drained by the response handler, so stop parsing here
+                return selected;
+            }
+            return selected;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package clients.impl.http;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import enums.WireFormat;
+import org.apache.http.HttpEntity;
+import utils.JSONObjectMapper;
+
+import java.nio.ByteBuffer;
+
+public final class PayloadEntities {
+
+    static final String APPLICATION_JSON = WireFormat.json.getContentType();
+
+    private PayloadEntities() {
+    }
+
+    public static HttpEntity streaming(Object payload) {
+        return streaming(payload, WireFormat.json);
+    }
+
+    public static HttpEntity streaming(Object payload, WireFormat format) {
+        HttpEntity entity = preSerialized(payload);
+        return entity != null ? entity : new JsonEntity(writer(payload, format), payload, format.getContentType());
+    }
+
+    public static HttpEntity buffered(Object payload) throws JsonProcessingException {
+        return buffered(payload, WireFormat.json);
+    }
+
+    // The async engine pulls content through HttpAsyncContentProducer, so objects are written to bytes up front
+    public static HttpEntity buffered(Object payload, WireFormat format) throws JsonProcessingException {
+        HttpEntity entity = preSerialized(payload);
+        return entity != null ? entity : new ByteBufferEntity(
+                ByteBuffer.wrap(writer(payload, format).writeValueAsBytes(payload)), format.getContentType());
+    }
+
+    private static ObjectWriter writer(Object payload, WireFormat format) {
+        return payload != null ? JSONObjectMapper.INSTANCE.writer(format, payload.getClass())
+                : JSONObjectMapper.INSTANCE.getMapper(format).writer();
+    }
+
+    // Pre-serialized bodies are sent as JSON, whatever format is configured for the path
+
+    private static HttpEntity preSerialized(Object payload) {
+        if (payload instanceof byte[]) {
+            return new ByteBufferEntity(ByteBuffer.wrap((byte[]) payload));
+        }
+        if (payload instanceof ByteBuffer) {
+            return new ByteBufferEntity((ByteBuffer) payload);
+        }
+        return null;
+    }
+}
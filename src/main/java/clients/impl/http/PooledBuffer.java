@@ -0,0 +1,82 @@
+package clients.impl.http;
+
+import org.apache.http.nio.ContentDecoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+public class PooledBuffer {
+
+    private byte[] buf;
+    private ByteBuffer view;
+
+    PooledBuffer(int initialSize) {
+        this.buf = new byte[initialSize];
+        this.view = ByteBuffer.wrap(buf);
+    }
+
+    public byte[] array() {
+        return buf;
+    }
+
+    public int size() {
+        return view.position();
+    }
+
+    public int capacity() {
+        return buf.length;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > buf.length) {
+            byte[] grown = new byte[Math.max(minCapacity, buf.length << 1)];
+            System.arraycopy(buf, 0, grown, 0, view.position());
+            int position = view.position();
+            buf = grown;
+            view = ByteBuffer.wrap(buf);
+            view.position(position);
+        }
+    }
+
+    public int readFrom(ContentDecoder decoder) throws IOException {
+        if (!view.hasRemaining()) {
+            ensureCapacity(buf.length + 1);
+        }
+        return decoder.read(view);
+    }
+
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(view.position() + length);
+        view.put(bytes, offset, length);
+    }
+
+    public OutputStream outputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                ensureCapacity(view.position() + 1);
+                view.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                PooledBuffer.this.write(bytes, offset, length);
+            }
+        };
+    }
+
+    public int deflate(Deflater deflater) {
+        if (!view.hasRemaining()) {
+            ensureCapacity(buf.length + 1);
+        }
+        int count = deflater.deflate(buf, view.position(), view.remaining());
+        view.position(view.position() + count);
+        return count;
+    }
+
+    void reset() {
+        view.clear();
+    }
+}
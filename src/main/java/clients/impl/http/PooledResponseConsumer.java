@@ -0,0 +1,78 @@
+package clients.impl.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+public class PooledResponseConsumer<T> extends AbstractAsyncResponseConsumer<T> {
+
+    private final BufferPool bufferPool;
+    private final ResponseHandler<T> responseHandler;
+    private final RequestTrace trace;
+    private HttpResponse response;
+    private ContentType contentType;
+    private PooledBuffer buffer;
+
+    public PooledResponseConsumer(BufferPool bufferPool, ResponseHandler<T> responseHandler) {
+        this(bufferPool, null, responseHandler);
+    }
+
+    public PooledResponseConsumer(BufferPool bufferPool, RequestTrace trace, ResponseHandler<T> responseHandler) {
+        this.bufferPool = bufferPool;
+        this.trace = trace;
+        this.responseHandler = trace != null ? trace.wrap(responseHandler) : responseHandler;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+        if (trace != null) {
+            trace.onResponseHeaders();
+        }
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        this.contentType = contentType;
+        this.buffer = bufferPool.acquire();
+        long contentLength = entity.getContentLength();
+        if (contentLength > 0 && contentLength < Integer.MAX_VALUE) {
+            buffer.ensureCapacity((int) contentLength);
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        while (buffer.readFrom(decoder) > 0) {
+            // keep draining whatever the decoder has buffered
+        }
+    }
+
+    @Override
+    protected T buildResult(HttpContext context) throws Exception {
+        if (trace != null) {
+            trace.onBodyRead();
+        }
+        if (buffer != null) {
+            response.setEntity(new ByteArrayEntity(buffer.array(), 0, buffer.size(), contentType));
+        }
+        return responseHandler.handleResponse(response);
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+        response = null;
+    }
+}
@@ -0,0 +1,161 @@
+package clients.impl.http;
+
+import clients.impl.HttpClient;
+import com.codahale.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import utils.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class PostBatcher<I, R, O> {
+
+    private final HttpClient httpClient;
+    private final String path;
+    private final Map<String, String> headerMap;
+    private final Class<R> responseType;
+    private final Merger<I> merger;
+    private final Splitter<I, R, O> splitter;
+    private final int maxBatchSize;
+    private final long batchWindow;
+    private final ScheduledExecutorService scheduler;
+    private final Meter batchesMeter;
+    private final Meter itemsMeter;
+    private List<I> items;
+    private List<CompletableFuture<O>> futures;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public interface Merger<I> {
+        Object merge(List<I> items) throws Exception;
+    }
+
+    public interface Splitter<I, R, O> {
+        List<O> split(List<I> items, R response) throws Exception;
+    }
+
+    public PostBatcher(HttpClient httpClient, String path, Map<String, String> headerMap, Class<R> responseType,
+                       Merger<I> merger, Splitter<I, R, O> splitter, int maxBatchSize, long batchWindow) {
+        this.httpClient = httpClient;
+        this.path = path;
+        this.headerMap = headerMap;
+        this.responseType = responseType;
+        this.merger = merger;
+        this.splitter = splitter;
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindow = batchWindow;
+        this.batchesMeter = MetricsRegistry.meter(PostBatcher.class, path, "batches");
+        this.itemsMeter = MetricsRegistry.meter(PostBatcher.class, path, "items");
+        this.items = new ArrayList<>(maxBatchSize);
+        this.futures = new ArrayList<>(maxBatchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-post-batcher-" + path);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<O> submit(I item) {
+        CompletableFuture<O> future = new CompletableFuture<>();
+        List<I> batchItems = null;
+        List<CompletableFuture<O>> batchFutures = null;
+        synchronized (this) {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("Post batcher for " + path + " is closed"));
+                return future;
+            }
+            items.add(item);
+            futures.add(future);
+            if (items.size() >= maxBatchSize) {
+                batchItems = items;
+                batchFutures = futures;
+                reset();
+            } else if (items.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::flush, batchWindow, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batchItems != null) {
+            send(batchItems, batchFutures);
+        }
+        return future;
+    }
+
+    public void flush() {
+        List<I> batchItems;
+        List<CompletableFuture<O>> batchFutures;
+        synchronized (this) {
+            if (items.isEmpty()) {
+                return;
+            }
+            batchItems = items;
+            batchFutures = futures;
+            reset();
+        }
+        send(batchItems, batchFutures);
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        scheduler.shutdownNow();
+    }
+
+    private void reset() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        items = new ArrayList<>(maxBatchSize);
+        futures = new ArrayList<>(maxBatchSize);
+    }
+
+    private void send(List<I> batchItems, List<CompletableFuture<O>> batchFutures) {
+        batchesMeter.mark();
+        itemsMeter.mark(batchItems.size());
+        try {
+            httpClient.doPostAsync(responseType, path, headerMap, merger.merge(batchItems))
+                    .whenComplete((response, throwable) -> {
+                        if (throwable != null) {
+                            failAll(batchFutures, throwable);
+                        } else {
+                            complete(batchItems, batchFutures, response);
+                        }
+                    });
+        } catch (Exception e) {
+            log.error("Error while sending batched post to {}", path, e);
+            failAll(batchFutures, e);
+        }
+    }
+
+    private void complete(List<I> batchItems, List<CompletableFuture<O>> batchFutures, R response) {
+        List<O> results;
+        try {
+            results = splitter.split(batchItems, response);
+        } catch (Exception e) {
+            log.error("Error while splitting batched response from {}", path, e);
+            failAll(batchFutures, e);
+            return;
+        }
+        if (results == null || results.size() != batchFutures.size()) {
+            failAll(batchFutures, new IllegalStateException("Batched response from " + path + " was split into "
+                    + (results == null ? 0 : results.size()) + " results for " + batchFutures.size() + " requests"));
+            return;
+        }
+        for (int i = 0; i < batchFutures.size(); i++) {
+            batchFutures.get(i).complete(results.get(i));
+        }
+    }
+
+    private void failAll(List<CompletableFuture<O>> batchFutures, Throwable throwable) {
+        batchFutures.forEach(future -> future.completeExceptionally(throwable));
+    }
+}
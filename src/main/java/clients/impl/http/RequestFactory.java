@@ -0,0 +1,9 @@
+package clients.impl.http;
+
+import exceptions.HttpExecutionException;
+import org.apache.http.client.methods.HttpRequestBase;
+
+@FunctionalInterface
+public interface RequestFactory<R extends HttpRequestBase> {
+    R create() throws HttpExecutionException;
+}
@@ -0,0 +1,57 @@
+package clients.impl.http;
+
+import clients.impl.HttpClient;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import utils.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+public class RequestPhaseTimers {
+
+    private final Timer serialize;
+    private final Timer leaseWait;
+    private final Timer connect;
+    private final Timer send;
+    private final Timer ttfb;
+    private final Timer bodyRead;
+    private final Timer deserialize;
+    private final Meter newConnections;
+    private final Meter reusedConnections;
+
+    public RequestPhaseTimers(String clientName, String route) {
+        this.serialize = phaseTimer(clientName, route, "serialize");
+        this.leaseWait = phaseTimer(clientName, route, "leaseWait");
+        this.connect = phaseTimer(clientName, route, "connect");
+        this.send = phaseTimer(clientName, route, "send");
+        this.ttfb = phaseTimer(clientName, route, "ttfb");
+        this.bodyRead = phaseTimer(clientName, route, "bodyRead");
+        this.deserialize = phaseTimer(clientName, route, "deserialize");
+        this.newConnections = MetricsRegistry.meter(HttpClient.class, clientName, "route", route, "connection", "new");
+        this.reusedConnections = MetricsRegistry.meter(HttpClient.class, clientName, "route", route, "connection",
+                "reused");
+    }
+
+    private static Timer phaseTimer(String clientName, String route, String phase) {
+        return MetricsRegistry.timer(HttpClient.class, clientName, "route", route, "phase", phase);
+    }
+
+    public void record(RequestTrace trace) {
+        update(serialize, trace.getSerializeNanos());
+        update(leaseWait, trace.getLeaseNanos());
+        update(connect, trace.getConnectNanos());
+        update(send, trace.getSendNanos());
+        update(ttfb, trace.getTtfbNanos());
+        update(bodyRead, trace.getBodyReadNanos());
+        update(deserialize, trace.getDeserializeNanos());
+        if (trace.getLeaseNanos() >= 0) {
+            (trace.isNewConnection() ? newConnections : reusedConnections).mark();
+        }
+    }
+
+    private static void update(Timer timer, long nanos) {
+        if (nanos >= 0) {
+            timer.update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package clients.impl.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request phase timings. The trace is the request's {@link HttpContext}, so the connection managers and the
+ * request executor reach it from the context they are handed, and it notices the pool lease completing when the
+ * exec chain binds the leased connection to the context. A phase that did not happen stays at -1.
+ */
+public class RequestTrace extends BasicHttpContext {
+
+    private static final String ATTRIBUTE = RequestTrace.class.getName();
+
+    private final long startNanos;
+    private long mark;
+    private long serializeNanos = -1;
+    private long leaseNanos = -1;
+    private long connectNanos = -1;
+    private long sendNanos = -1;
+    private long ttfbNanos = -1;
+    private long bodyReadNanos = -1;
+    private long deserializeNanos = -1;
+    private boolean newConnection;
+    private long totalNanos;
+
+    public RequestTrace(long serializeNanos) {
+        this.serializeNanos = serializeNanos;
+        this.startNanos = System.nanoTime();
+        this.mark = startNanos;
+        super.setAttribute(ATTRIBUTE, this);
+    }
+
+    public static RequestTrace from(HttpContext context) {
+        return context != null ? (RequestTrace) context.getAttribute(ATTRIBUTE) : null;
+    }
+
+    @Override
+    public void setAttribute(String id, Object obj) {
+        if (HttpCoreContext.HTTP_CONNECTION.equals(id) && leaseNanos < 0) {
+            onConnectionLeased();
+        }
+        super.setAttribute(id, obj);
+    }
+
+    private void onConnectionLeased() {
+        long now = System.nanoTime();
+        leaseNanos = now - mark;
+        mark = now;
+    }
+
+    // Blocking client: the socket connect runs after the lease
+    void onConnected(long nanos) {
+        connectNanos = nanos;
+        newConnection = true;
+        mark = System.nanoTime();
+    }
+
+    // Async client: the pool connects before completing the lease, so the connect time is part of leaseWait
+    void onNewConnection() {
+        newConnection = true;
+    }
+
+    void onRequestSent() {
+        long now = System.nanoTime();
+        sendNanos = now - mark;
+        mark = now;
+    }
+
+    void onResponseHeaders() {
+        long now = System.nanoTime();
+        ttfbNanos = now - mark;
+        mark = now;
+    }
+
+    void onBodyRead() {
+        long now = System.nanoTime();
+        bodyReadNanos = now - mark;
+        mark = now;
+    }
+
+    /**
+     * Times the handler as deserialization. When the body has not been read yet, time spent blocked reading the
+     * entity stream is split out as the body read phase.
+     */
+    public <T> ResponseHandler<T> wrap(ResponseHandler<T> responseHandler) {
+        return response -> {
+            long handlerStart = System.nanoTime();
+            if (bodyReadNanos >= 0 || response.getEntity() == null) {
+                try {
+                    return responseHandler.handleResponse(response);
+                } finally {
+                    deserializeNanos = System.nanoTime() - handlerStart;
+                }
+            }
+            TimedEntity timedEntity = new TimedEntity(response.getEntity());
+            response.setEntity(timedEntity);
+            try {
+                return responseHandler.handleResponse(response);
+            } finally {
+                bodyReadNanos = timedEntity.readNanos;
+                deserializeNanos = System.nanoTime() - handlerStart - timedEntity.readNanos;
+            }
+        };
+    }
+
+    public void complete() {
+        totalNanos = System.nanoTime() - startNanos;
+    }
+
+    public long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    public long getLeaseNanos() {
+        return leaseNanos;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getSendNanos() {
+        return sendNanos;
+    }
+
+    public long getTtfbNanos() {
+        return ttfbNanos;
+    }
+
+    public long getBodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    public long getDeserializeNanos() {
+        return deserializeNanos;
+    }
+
+    public boolean isNewConnection() {
+        return newConnection;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "total=" + millis(totalNanos) + " serialize=" + millis(serializeNanos) + " leaseWait=" + millis(leaseNanos)
+                + " connect=" + (newConnection ? millis(connectNanos) : "reused") + " send=" + millis(sendNanos)
+                + " ttfb=" + millis(ttfbNanos) + " bodyRead=" + millis(bodyReadNanos)
+                + " deserialize=" + millis(deserializeNanos);
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static class TimedEntity extends HttpEntityWrapper {
+
+        private long readNanos;
+
+        TimedEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+                @Override
+                public int read() throws IOException {
+                    long start = System.nanoTime();
+                    try {
+                        return super.read();
+                    } finally {
+                        readNanos += System.nanoTime() - start;
+                    }
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    long start = System.nanoTime();
+                    try {
+                        return super.read(b, off, len);
+                    } finally {
+                        readNanos += System.nanoTime() - start;
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    long start = System.nanoTime();
+                    try {
+                        super.close();
+                    } finally {
+                        readNanos += System.nanoTime() - start;
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package clients.impl.http;
+
+import com.codahale.metrics.Meter;
+import utils.MetricsRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Weight-bounded response cache. Every key holds a single entry in insertion order, so replaced and expired entries
+ * leave the map together with their bodies and the total weight never exceeds the configured maximum.
+ */
+public class ResponseCache {
+
+    private final Meter hitMeter;
+    private final Meter missMeter;
+    private final long maxWeight;
+    private final long defaultTtl;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long weight;
+
+    public ResponseCache(String name, long maxWeight, long defaultTtl) {
+        this.hitMeter = MetricsRegistry.meter(ResponseCache.class, name, "hit");
+        this.missMeter = MetricsRegistry.meter(ResponseCache.class, name, "miss");
+        this.maxWeight = maxWeight;
+        this.defaultTtl = defaultTtl;
+    }
+
+    public CachedResponse get(String key) {
+        CachedResponse response = lookup(key, System.currentTimeMillis());
+        if (response == null) {
+            missMeter.mark();
+        } else {
+            hitMeter.mark();
+        }
+        return response;
+    }
+
+    private synchronized CachedResponse lookup(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            remove(key);
+            return null;
+        }
+        return entry.response;
+    }
+
+    public void put(String key, CachedResponse response) {
+        long ttl = response.getMaxAgeMs() == CachedResponse.DEFAULT_TTL ? defaultTtl : response.getMaxAgeMs();
+        if (ttl <= 0 || response.getWeight() > maxWeight) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        store(key, new Entry(response, now + ttl), now);
+    }
+
+    private synchronized void store(String key, Entry entry, long now) {
+        // Removing first moves a replaced key to the tail, so the head is always the oldest write
+        remove(key);
+        entries.put(key, entry);
+        weight += entry.response.getWeight();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            Entry candidate = eldest.next();
+            if (weight <= maxWeight && candidate.expiresAt > now) {
+                break;
+            }
+            eldest.remove();
+            weight -= candidate.response.getWeight();
+        }
+    }
+
+    private void remove(String key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            weight -= previous.response.getWeight();
+        }
+    }
+
+    synchronized long getWeight() {
+        return weight;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final CachedResponse response;
+        private final long expiresAt;
+
+        private Entry(CachedResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
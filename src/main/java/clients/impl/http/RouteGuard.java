@@ -0,0 +1,46 @@
+package clients.impl.http;
+
+public class RouteGuard {
+
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public RouteGuard(CircuitBreaker circuitBreaker, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    // Returns null when the request is rejected
+    public CircuitBreaker.Permit tryAcquire() {
+        CircuitBreaker.Permit permit = circuitBreaker != null ? circuitBreaker.tryAcquire()
+                : CircuitBreaker.Permit.UNTRACKED;
+        if (permit == null) {
+            return null;
+        }
+        if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+            if (circuitBreaker != null) {
+                circuitBreaker.release(permit);
+            }
+            return null;
+        }
+        return permit;
+    }
+
+    public void onComplete(CircuitBreaker.Permit permit, long rttNanos, boolean success) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onComplete(permit, success);
+        }
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.onComplete(rttNanos, !success);
+        }
+    }
+
+    public void release(CircuitBreaker.Permit permit) {
+        if (circuitBreaker != null) {
+            circuitBreaker.release(permit);
+        }
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.release();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package clients.impl.http;
+
+import com.codahale.metrics.Meter;
+import exceptions.HttpExecutionException;
+import utils.MetricsRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+public class SingleFlight<K, V> {
+
+    private final Meter coalescedMeter;
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    public SingleFlight(String name) {
+        this.coalescedMeter = MetricsRegistry.meter(SingleFlight.class, name, "coalesced");
+    }
+
+    public interface Loader<V> {
+        V load() throws HttpExecutionException;
+    }
+
+    public V execute(K key, Loader<V> loader) throws HttpExecutionException {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            coalescedMeter.mark();
+            return await(inFlight);
+        }
+        try {
+            V value = loader.load();
+            call.complete(value);
+            return value;
+        } catch (HttpExecutionException | RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> inFlight) throws HttpExecutionException {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpExecutionException("Interrupted while waiting for coalesced http request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HttpExecutionException) {
+                throw (HttpExecutionException) e.getCause();
+            }
+            throw new HttpExecutionException("Error in coalesced http request", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package clients.impl.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class TracingConnectionManager extends PoolingHttpClientConnectionManager {
+
+    public TracingConnectionManager(long timeToLive, TimeUnit timeUnit) {
+        super(timeToLive, timeUnit);
+    }
+
+    // Only called for connections that are not open yet, reused connections skip straight to sending
+    @Override
+    public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context)
+            throws IOException {
+        long start = System.nanoTime();
+        super.connect(managedConn, route, connectTimeout, context);
+        RequestTrace trace = RequestTrace.from(context);
+        if (trace != null) {
+            trace.onConnected(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package clients.impl.http;
+
+import org.apache.http.config.Registry;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.SchemePortResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NHttpConnectionFactory;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class TracingNHttpConnectionManager extends PoolingNHttpClientConnectionManager {
+
+    public TracingNHttpConnectionManager(ConnectingIOReactor ioReactor,
+                                         NHttpConnectionFactory<ManagedNHttpClientConnection> connFactory,
+                                         Registry<SchemeIOSessionStrategy> ioSessionFactoryRegistry,
+                                         SchemePortResolver schemePortResolver, DnsResolver dnsResolver,
+                                         long timeToLive, TimeUnit timeUnit) {
+        super(ioReactor, connFactory, ioSessionFactoryRegistry, schemePortResolver, dnsResolver, timeToLive, timeUnit);
+    }
+
+    // Only called for connections the pool has just opened, reused ones already have their route complete
+    @Override
+    public void startRoute(NHttpClientConnection managedConn, HttpRoute route, HttpContext context)
+            throws IOException {
+        super.startRoute(managedConn, route, context);
+        RequestTrace trace = RequestTrace.from(context);
+        if (trace != null) {
+            trace.onNewConnection();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package clients.impl.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+
+public class TracingRequestExecutor extends HttpRequestExecutor {
+
+    // Streaming entities serialize straight into the socket, so for them send also covers serialization
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws IOException, HttpException {
+        HttpResponse response = super.doSendRequest(request, conn, context);
+        RequestTrace trace = RequestTrace.from(context);
+        if (trace != null) {
+            trace.onRequestSent();
+        }
+        return response;
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws HttpException, IOException {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        RequestTrace trace = RequestTrace.from(context);
+        if (trace != null) {
+            trace.onResponseHeaders();
+        }
+        return response;
+    }
+}
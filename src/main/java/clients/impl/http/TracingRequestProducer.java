@@ -0,0 +1,63 @@
+package clients.impl.http;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+public class TracingRequestProducer implements HttpAsyncRequestProducer {
+
+    private final HttpAsyncRequestProducer delegate;
+    private final RequestTrace trace;
+
+    public TracingRequestProducer(HttpAsyncRequestProducer delegate, RequestTrace trace) {
+        this.delegate = delegate;
+        this.trace = trace;
+    }
+
+    @Override
+    public HttpHost getTarget() {
+        return delegate.getTarget();
+    }
+
+    @Override
+    public HttpRequest generateRequest() throws IOException, HttpException {
+        return delegate.generateRequest();
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+        delegate.produceContent(encoder, ioControl);
+    }
+
+    @Override
+    public void requestCompleted(HttpContext context) {
+        trace.onRequestSent();
+        delegate.requestCompleted(context);
+    }
+
+    @Override
+    public void failed(Exception ex) {
+        delegate.failed(ex);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return delegate.isRepeatable();
+    }
+
+    @Override
+    public void resetRequest() throws IOException {
+        delegate.resetRequest();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
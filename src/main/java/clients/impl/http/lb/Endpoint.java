@@ -0,0 +1,75 @@
+package clients.impl.http.lb;
+
+import lombok.Getter;
+import org.apache.http.HttpHost;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Endpoint {
+
+    private static final double EWMA_WEIGHT = 0.2;
+
+    @Getter
+    private final HttpHost host;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong ewmaLatencyBits = new AtomicLong(Double.doubleToLongBits(0));
+    @Getter
+    private volatile long ejectedUntil;
+
+    public Endpoint(HttpHost host) {
+        this.host = host;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double getEwmaLatencyNanos() {
+        return Double.longBitsToDouble(ewmaLatencyBits.get());
+    }
+
+    public double getCost() {
+        return (getEwmaLatencyNanos() + 1) * (outstanding.get() + 1);
+    }
+
+    public boolean isEjected(long now) {
+        return ejectedUntil > now;
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    int onComplete(long latencyNanos, boolean success) {
+        outstanding.decrementAndGet();
+        long current;
+        long updated;
+        do {
+            current = ewmaLatencyBits.get();
+            double ewma = Double.longBitsToDouble(current);
+            updated = Double.doubleToLongBits(ewma == 0 ? latencyNanos
+                    : ewma + EWMA_WEIGHT * (latencyNanos - ewma));
+        } while (!ewmaLatencyBits.compareAndSet(current, updated));
+        if (success) {
+            consecutiveFailures.set(0);
+            return 0;
+        }
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    void onAbandon() {
+        outstanding.decrementAndGet();
+    }
+
+    void eject(long until) {
+        ejectedUntil = until;
+        consecutiveFailures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return host.toHostString();
+    }
+}
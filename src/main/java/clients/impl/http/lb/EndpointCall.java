@@ -0,0 +1,51 @@
+package clients.impl.http.lb;
+
+import org.apache.http.client.ResponseHandler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EndpointCall {
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int ABANDONED = 3;
+
+    private final LoadBalancer loadBalancer;
+    private final Endpoint endpoint;
+    private final long startNanos;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    EndpointCall(LoadBalancer loadBalancer, Endpoint endpoint) {
+        this.loadBalancer = loadBalancer;
+        this.endpoint = endpoint;
+        this.startNanos = System.nanoTime();
+    }
+
+    public <T> ResponseHandler<T> wrap(ResponseHandler<T> responseHandler) {
+        return response -> {
+            complete(response.getStatusLine().getStatusCode() < 500);
+            return responseHandler.handleResponse(response);
+        };
+    }
+
+    public void complete(boolean success) {
+        if (state.compareAndSet(PENDING, success ? SUCCEEDED : FAILED) && endpoint != null) {
+            loadBalancer.onComplete(endpoint, getElapsedNanos(), success);
+        }
+    }
+
+    public void abandon() {
+        if (state.compareAndSet(PENDING, ABANDONED) && endpoint != null) {
+            endpoint.onAbandon();
+        }
+    }
+
+    public boolean isSucceeded() {
+        return state.get() == SUCCEEDED;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+}
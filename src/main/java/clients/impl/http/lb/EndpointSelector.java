@@ -0,0 +1,7 @@
+package clients.impl.http.lb;
+
+import java.util.List;
+
+public interface EndpointSelector {
+    Endpoint select(List<Endpoint> endpoints);
+}
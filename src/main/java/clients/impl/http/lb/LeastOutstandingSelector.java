@@ -0,0 +1,22 @@
+package clients.impl.http.lb;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class LeastOutstandingSelector implements EndpointSelector {
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        // Start the scan at a random offset so ties don't all land on the first endpoint
+        int offset = ThreadLocalRandom.current().nextInt(size);
+        Endpoint selected = endpoints.get(offset);
+        for (int i = 1; i < size; i++) {
+            Endpoint candidate = endpoints.get((offset + i) % size);
+            if (candidate.getOutstanding() < selected.getOutstanding()) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+}
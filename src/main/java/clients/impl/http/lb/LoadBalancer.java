@@ -0,0 +1,109 @@
+package clients.impl.http.lb;
+
+import enums.LoadBalancingStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.client.utils.URIUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+public class LoadBalancer {
+
+    private final List<Endpoint> endpoints;
+    private final Map<HttpHost, Endpoint> endpointsByHost = new HashMap<>();
+    private final EndpointSelector selector;
+    private final int failureThreshold;
+    private final long ejectionTime;
+    private final int maxEjected;
+    private volatile List<Endpoint> healthy;
+    private volatile long nextReinstateAt = Long.MAX_VALUE;
+
+    public LoadBalancer(List<HttpHost> hosts, LoadBalancingStrategy strategy, int failureThreshold, long ejectionTime,
+                        int maxEjectionPercent) {
+        List<Endpoint> endpoints = new ArrayList<>(hosts.size());
+        for (HttpHost host : hosts) {
+            Endpoint endpoint = new Endpoint(host);
+            endpoints.add(endpoint);
+            endpointsByHost.put(host, endpoint);
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.healthy = this.endpoints;
+        this.selector = createSelector(strategy);
+        this.failureThreshold = failureThreshold;
+        this.ejectionTime = ejectionTime;
+        this.maxEjected = endpoints.size() * maxEjectionPercent / 100;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public Endpoint select() {
+        if (System.currentTimeMillis() >= nextReinstateAt) {
+            refreshHealthy();
+        }
+        return selector.select(healthy);
+    }
+
+    public boolean isEndpoint(URI uri) {
+        return endpointsByHost.containsKey(URIUtils.extractHost(uri));
+    }
+
+    public EndpointCall begin(URI uri) {
+        Endpoint endpoint = endpointsByHost.get(URIUtils.extractHost(uri));
+        if (endpoint != null) {
+            endpoint.onStart();
+        }
+        return new EndpointCall(this, endpoint);
+    }
+
+    void onComplete(Endpoint endpoint, long latencyNanos, boolean success) {
+        int failures = endpoint.onComplete(latencyNanos, success);
+        if (failureThreshold > 0 && failures >= failureThreshold) {
+            eject(endpoint);
+        }
+    }
+
+    private synchronized void eject(Endpoint endpoint) {
+        long now = System.currentTimeMillis();
+        if (endpoint.isEjected(now) || endpoints.size() - healthy.size() >= maxEjected) {
+            return;
+        }
+        log.error("Ejecting http endpoint {} for {} ms after consecutive failures", endpoint, ejectionTime);
+        endpoint.eject(now + ejectionTime);
+        refreshHealthy();
+    }
+
+    private synchronized void refreshHealthy() {
+        long now = System.currentTimeMillis();
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        long reinstateAt = Long.MAX_VALUE;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isEjected(now)) {
+                reinstateAt = Math.min(reinstateAt, endpoint.getEjectedUntil());
+            } else {
+                available.add(endpoint);
+            }
+        }
+        healthy = available.isEmpty() ? endpoints : available;
+        nextReinstateAt = reinstateAt;
+    }
+
+    private static EndpointSelector createSelector(LoadBalancingStrategy strategy) {
+        switch (strategy) {
+            case leastOutstanding:
+                return new LeastOutstandingSelector();
+            case powerOfTwoChoices:
+                return new PowerOfTwoChoicesSelector();
+            case roundRobin:
+            default:
+                return new RoundRobinSelector();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package clients.impl.http.lb;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class PowerOfTwoChoicesSelector implements EndpointSelector {
+
+    @Override
+    public Endpoint select(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        return a.getCost() <= b.getCost() ? a : b;
+    }
+}
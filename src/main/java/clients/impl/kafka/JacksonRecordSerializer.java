@@ -0,0 +1,54 @@
+package clients.impl.kafka;
+
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import utils.JSONObjectMapper;
+
+import java.io.IOException;
+
+public class JacksonRecordSerializer<T> implements RecordSerializer<T> {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    // Serializers only hold the buffer for the duration of one call, so every serializer on a thread can share it
+    private static final ThreadLocal<ByteArrayBuilder> BUFFERS =
+            ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_BUFFER_SIZE));
+
+    private final ObjectWriter writer;
+
+    public JacksonRecordSerializer(ObjectWriter writer) {
+        this.writer = writer;
+    }
+
+    public static <T> JacksonRecordSerializer<T> json() {
+        return new JacksonRecordSerializer<>(JSONObjectMapper.INSTANCE.getMapper().writer());
+    }
+
+    public static <T> JacksonRecordSerializer<T> avro(Class<T> type) throws JsonMappingException {
+        AvroMapper avroMapper = new AvroMapper();
+        return avro(avroMapper, avroMapper.schemaFor(type));
+    }
+
+    public static <T> JacksonRecordSerializer<T> avro(AvroMapper avroMapper, AvroSchema schema) {
+        return new JacksonRecordSerializer<>(avroMapper.writer(schema));
+    }
+
+    @Override
+    public byte[] serialize(T value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        ByteArrayBuilder buffer = BUFFERS.get();
+        try {
+            writer.writeValue(buffer, value);
+            return buffer.toByteArray();
+        } finally {
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package clients.impl.kafka;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+public class PartitionOffsets {
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private volatile long nextOffset = -1;
+    private long committedOffset = -1;
+
+    public void dispatched(long offset) {
+        inFlight.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    public void completed(long offset) {
+        inFlight.remove(offset);
+    }
+
+    public boolean isIdle() {
+        return inFlight.isEmpty();
+    }
+
+    // Everything below the oldest unfinished record is done, whatever order the workers finished in
+    public long getCommittableOffset() {
+        long next = nextOffset;
+        Long oldest = inFlight.ceiling(Long.MIN_VALUE);
+        return oldest != null ? oldest : next;
+    }
+
+    public boolean hasUncommitted() {
+        long committable = getCommittableOffset();
+        return committable >= 0 && committable != committedOffset;
+    }
+
+    public void markCommitted(long offset) {
+        committedOffset = offset;
+    }
+}
@@ -0,0 +1,148 @@
+package clients.impl.kafka;
+
+import clients.impl.KafkaProducerClient;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import utils.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class ProducerLoadController {
+
+    private static final String PRODUCER_METRICS = "producer-metrics";
+    private static final double SCALE_UP_UTILIZATION = 0.5;
+    private static final double SCALE_DOWN_UTILIZATION = 0.1;
+
+    private final String clientKey;
+    private final ProducerSelector producerSelector;
+    private final long bufferMemory;
+    private final double bufferHighWatermark;
+    private final double maxRecordQueueTime;
+    private final int minActiveProducers;
+    private final boolean adaptiveProducerCount;
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final Meter saturatedMeter;
+    private volatile boolean saturated;
+    private volatile double recordQueueTime;
+    private volatile double batchSize;
+    private volatile double bufferAvailableBytes;
+    private ScheduledExecutorService scheduler;
+
+    public ProducerLoadController(String clientKey, ProducerSelector producerSelector, long bufferMemory,
+                                  double bufferHighWatermark, double maxRecordQueueTime, int minActiveProducers,
+                                  boolean adaptiveProducerCount) {
+        this.clientKey = clientKey;
+        this.producerSelector = producerSelector;
+        this.bufferMemory = bufferMemory;
+        this.bufferHighWatermark = bufferHighWatermark;
+        this.maxRecordQueueTime = maxRecordQueueTime;
+        this.minActiveProducers = minActiveProducers;
+        this.adaptiveProducerCount = adaptiveProducerCount && producerSelector.isResizable();
+        this.saturatedMeter = MetricsRegistry.meter(KafkaProducerClient.class, clientKey, "load", "saturated");
+    }
+
+    public void start(long sampleInterval) {
+        MetricsRegistry.registerGauge(KafkaProducerClient.class, (Gauge<Integer>) producerSelector::getActiveCount,
+                clientKey, "load", "activeProducers");
+        MetricsRegistry.registerGauge(KafkaProducerClient.class, (Gauge<Long>) pendingBytes::get,
+                clientKey, "load", "pendingBytes");
+        MetricsRegistry.registerGauge(KafkaProducerClient.class, (Gauge<Double>) () -> recordQueueTime,
+                clientKey, "load", "recordQueueTimeAvg");
+        MetricsRegistry.registerGauge(KafkaProducerClient.class, (Gauge<Double>) () -> batchSize,
+                clientKey, "load", "batchSizeAvg");
+        MetricsRegistry.registerGauge(KafkaProducerClient.class, (Gauge<Double>) () -> bufferAvailableBytes,
+                clientKey, "load", "bufferAvailableBytes");
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-load-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, sampleInterval, sampleInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        MetricsRegistry.removeMetrics(KafkaProducerClient.class, clientKey, "load");
+    }
+
+    public boolean tryAcquire(int bytes) {
+        // Reject while there is still headroom, before the producer's own buffer fills and send() starts blocking
+        if (saturated || pendingBytes.get() + bytes > bufferMemory * producerSelector.getActiveCount() * bufferHighWatermark) {
+            saturatedMeter.mark();
+            return false;
+        }
+        pendingBytes.addAndGet(bytes);
+        return true;
+    }
+
+    public void acquire(int bytes) {
+        pendingBytes.addAndGet(bytes);
+    }
+
+    public void release(int bytes) {
+        pendingBytes.addAndGet(-bytes);
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    private void run() {
+        try {
+            Producer<byte[], byte[]>[] producers = producerSelector.getProducers();
+            int active = producerSelector.getActiveCount();
+            double queueTime = 0;
+            double batch = 0;
+            double available = 0;
+            for (int i = 0; i < active; i++) {
+                Map<MetricName, ? extends Metric> metrics = producers[i].metrics();
+                queueTime = Math.max(queueTime, metricValue(metrics, "record-queue-time-avg"));
+                batch += metricValue(metrics, "batch-size-avg");
+                available += metricValue(metrics, "buffer-available-bytes");
+            }
+            recordQueueTime = queueTime;
+            batchSize = batch / active;
+            bufferAvailableBytes = available;
+            double utilization = 1 - available / ((double) bufferMemory * active);
+            saturated = utilization > bufferHighWatermark || queueTime > maxRecordQueueTime;
+            if (adaptiveProducerCount) {
+                resize(active, utilization, queueTime);
+            }
+        } catch (Exception e) {
+            log.error("Error while sampling kafka producer metrics", e);
+        }
+    }
+
+    private void resize(int active, double utilization, double queueTime) {
+        if ((utilization > SCALE_UP_UTILIZATION || queueTime > maxRecordQueueTime)
+                && active < producerSelector.getProducers().length) {
+            producerSelector.setActiveCount(active + 1);
+            log.info("Scaling kafka producers up to {}", active + 1);
+        } else if (utilization < SCALE_DOWN_UTILIZATION && queueTime < maxRecordQueueTime / 4
+                && active > minActiveProducers) {
+            producerSelector.setActiveCount(active - 1);
+            log.info("Scaling kafka producers down to {}", active - 1);
+        }
+    }
+
+    private static double metricValue(Map<MetricName, ? extends Metric> metrics, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            if (PRODUCER_METRICS.equals(entry.getKey().group()) && name.equals(entry.getKey().name())) {
+                double value = entry.getValue().value();
+                return Double.isNaN(value) || Double.isInfinite(value) ? 0 : value;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,59 @@
+package clients.impl.kafka;
+
+import enums.ProducerSelectionStrategy;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProducerSelector {
+
+    private final Producer<byte[], byte[]>[] producers;
+    private final ProducerSelectionStrategy strategy;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile int activeCount;
+
+    @SuppressWarnings("unchecked")
+    public ProducerSelector(List<Producer<byte[], byte[]>> producers, ProducerSelectionStrategy strategy) {
+        this.producers = producers.toArray(new Producer[producers.size()]);
+        this.strategy = strategy;
+        this.activeCount = this.producers.length;
+    }
+
+    public Producer<byte[], byte[]> select() {
+        int active = activeCount;
+        if (active == 1) {
+            return producers[0];
+        }
+        if (strategy == ProducerSelectionStrategy.threadAffine) {
+            return producers[(int) (Thread.currentThread().getId() % active)];
+        }
+        return producers[(next.getAndIncrement() & Integer.MAX_VALUE) % active];
+    }
+
+    // Records with the same key always go through the same producer, which keeps their relative order
+    public Producer<byte[], byte[]> select(byte[] key, Producer<byte[], byte[]> fallback) {
+        if (strategy != ProducerSelectionStrategy.keyHash || key == null || producers.length == 1) {
+            return fallback;
+        }
+        return producers[(Utils.murmur2(key) & Integer.MAX_VALUE) % producers.length];
+    }
+
+    public Producer<byte[], byte[]>[] getProducers() {
+        return producers;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    // Key hashing always spans every producer, since resizing it would reorder records of the same key
+    public boolean isResizable() {
+        return strategy != ProducerSelectionStrategy.keyHash;
+    }
+
+    public void setActiveCount(int activeCount) {
+        this.activeCount = Math.max(1, Math.min(activeCount, producers.length));
+    }
+}
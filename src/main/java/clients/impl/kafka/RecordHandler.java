@@ -0,0 +1,7 @@
+package clients.impl.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+public interface RecordHandler {
+    void handle(ConsumerRecord<byte[], byte[]> consumerRecord) throws Exception;
+}
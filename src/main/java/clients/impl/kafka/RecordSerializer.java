@@ -0,0 +1,7 @@
+package clients.impl.kafka;
+
+import java.io.IOException;
+
+public interface RecordSerializer<T> {
+    byte[] serialize(T value) throws IOException;
+}
@@ -0,0 +1,313 @@
+package clients.impl.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class RecordSpool {
+
+    // Each segment starts with the committed write position followed by the replayed read position
+    private static final int HEADER_SIZE = 8;
+    private static final String SUFFIX = ".spool";
+
+    // Two spools on one directory would overwrite each other's segments, so each directory is claimed once per JVM
+    private static final Set<String> openDirectories = ConcurrentHashMap.newKeySet();
+
+    private final File directory;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSequence;
+    private long pendingBytes;
+    private boolean closed;
+
+    public RecordSpool(String path, int segmentSize) throws IOException {
+        this.directory = new File(path);
+        this.segmentSize = segmentSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create spool directory " + directory.getAbsolutePath());
+        }
+        if (!openDirectories.add(directory.getCanonicalPath())) {
+            throw new IOException("Spool directory " + directory.getAbsolutePath() + " is already in use");
+        }
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void open() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                Segment segment = new Segment(file, false);
+                segments.addLast(segment);
+                pendingBytes += segment.pendingBytes();
+                nextSequence = Math.max(nextSequence, sequenceOf(file) + 1);
+            }
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+    }
+
+    public synchronized boolean append(ProducerRecord<byte[], byte[]> producerRecord) {
+        if (closed) {
+            return false;
+        }
+        byte[] topic = producerRecord.topic().getBytes(StandardCharsets.UTF_8);
+        int size = 4 + 4 + topic.length + 4 + 4 + length(producerRecord.key()) + 4 + length(producerRecord.value());
+        if (size > segmentSize - HEADER_SIZE) {
+            log.error("Record of {} bytes does not fit in a spool segment of {} bytes", size, segmentSize);
+            return false;
+        }
+        try {
+            Segment segment = segments.peekLast();
+            if (segment.remaining() < size) {
+                segment = roll();
+            }
+            segment.write(size, topic, producerRecord);
+            pendingBytes += size;
+            return true;
+        } catch (IOException e) {
+            log.error("Error while spooling kafka record", e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads up to maxRecords from the head of the spool without consuming them. A record stays spooled, and is read
+     * again by the next peek, until it is passed to {@link #commit}.
+     */
+    public synchronized List<SpooledRecord> peek(int maxRecords) {
+        List<SpooledRecord> spooledRecords = new ArrayList<>();
+        for (Segment segment : segments) {
+            int position = segment.readPosition();
+            while (spooledRecords.size() < maxRecords && position < segment.writePosition()) {
+                SpooledRecord spooledRecord = segment.read(position);
+                spooledRecords.add(spooledRecord);
+                position = spooledRecord.endPosition;
+            }
+            if (spooledRecords.size() >= maxRecords) {
+                break;
+            }
+        }
+        return spooledRecords;
+    }
+
+    // Consumes the spool up to and including the given record, which must come from the oldest unconsumed peek
+    public synchronized void commit(SpooledRecord spooledRecord) {
+        if (!segments.contains(spooledRecord.segment)) {
+            return;
+        }
+        while (segments.peekFirst() != spooledRecord.segment) {
+            Segment drained = segments.pollFirst();
+            pendingBytes -= drained.pendingBytes();
+            drained.delete();
+        }
+        Segment segment = spooledRecord.segment;
+        pendingBytes -= spooledRecord.endPosition - segment.readPosition();
+        segment.commitReadPosition(spooledRecord.endPosition);
+        if (segment.pendingBytes() == 0) {
+            if (segments.size() == 1) {
+                segment.reset();
+            } else {
+                segments.pollFirst().delete();
+            }
+        }
+    }
+
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.forEach(Segment::close);
+        segments.clear();
+        try {
+            openDirectories.remove(directory.getCanonicalPath());
+        } catch (IOException e) {
+            log.error("Error releasing spool directory {}", directory, e);
+        }
+    }
+
+    private Segment roll() throws IOException {
+        Segment segment = new Segment(new File(directory, String.format("%020d%s", nextSequence++, SUFFIX)), true);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private static long sequenceOf(File file) {
+        try {
+            return Long.parseLong(file.getName().substring(0, file.getName().length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    // A MappedByteBuffer has no public unmap, without this the mapping and its file stay around until a GC finds it.
+    // The buffer must not be touched afterwards.
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) {
+            // Java 8 has no Unsafe.invokeCleaner, the buffer's own cleaner is reachable instead
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception cleanerException) {
+                log.warn("Unable to unmap spool segment, it is released once garbage collected", cleanerException);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to unmap spool segment, it is released once garbage collected", e);
+        }
+    }
+
+    public static class SpooledRecord {
+        private final ProducerRecord<byte[], byte[]> producerRecord;
+        private final Segment segment;
+        private final int endPosition;
+
+        private SpooledRecord(ProducerRecord<byte[], byte[]> producerRecord, Segment segment, int endPosition) {
+            this.producerRecord = producerRecord;
+            this.segment = segment;
+            this.endPosition = endPosition;
+        }
+
+        public ProducerRecord<byte[], byte[]> getProducerRecord() {
+            return producerRecord;
+        }
+    }
+
+    private class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+
+        private Segment(File file, boolean create) throws IOException {
+            this.file = file;
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                        create ? segmentSize : Math.max(randomAccessFile.length(), HEADER_SIZE));
+            }
+            if (create || buffer.getInt(0) < HEADER_SIZE) {
+                reset();
+            }
+        }
+
+        private int writePosition() {
+            return buffer.getInt(0);
+        }
+
+        private int readPosition() {
+            return buffer.getInt(4);
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition();
+        }
+
+        private int pendingBytes() {
+            return writePosition() - readPosition();
+        }
+
+        private void write(int size, byte[] topic, ProducerRecord<byte[], byte[]> producerRecord) {
+            int position = writePosition();
+            buffer.position(position);
+            buffer.putInt(size);
+            buffer.putInt(topic.length);
+            buffer.put(topic);
+            buffer.putInt(producerRecord.partition() == null ? -1 : producerRecord.partition());
+            putBytes(producerRecord.key());
+            putBytes(producerRecord.value());
+            // Publish the record only once its bytes are in place, so a crash never exposes a torn write
+            buffer.putInt(0, position + size);
+        }
+
+        private SpooledRecord read(int position) {
+            buffer.position(position);
+            int size = buffer.getInt();
+            byte[] topic = new byte[buffer.getInt()];
+            buffer.get(topic);
+            int partition = buffer.getInt();
+            byte[] key = getBytes();
+            byte[] value = getBytes();
+            return new SpooledRecord(new ProducerRecord<>(new String(topic, StandardCharsets.UTF_8),
+                    partition < 0 ? null : partition, key, value), this, position + size);
+        }
+
+        private void commitReadPosition(int position) {
+            buffer.putInt(4, position);
+        }
+
+        private void putBytes(byte[] bytes) {
+            if (bytes == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        private byte[] getBytes() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private void reset() {
+            buffer.putInt(0, HEADER_SIZE);
+            buffer.putInt(4, HEADER_SIZE);
+        }
+
+        private void close() {
+            buffer.force();
+            unmap(buffer);
+        }
+
+        private void delete() {
+            unmap(buffer);
+            if (!file.delete()) {
+                log.error("Unable to delete drained spool segment {}", file);
+            }
+        }
+    }
+}
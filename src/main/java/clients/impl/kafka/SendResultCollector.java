@@ -0,0 +1,68 @@
+package clients.impl.kafka;
+
+import models.SendResult;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class SendResultCollector {
+
+    private final List<ProducerRecord<byte[], byte[]>> producerRecords;
+    private final AtomicReferenceArray<RecordMetadata> metadata;
+    private final AtomicReferenceArray<Exception> errors;
+    private final AtomicInteger pending;
+    private final CompletableFuture<SendResult> future = new CompletableFuture<>();
+
+    public SendResultCollector(List<ProducerRecord<byte[], byte[]>> producerRecords) {
+        this.producerRecords = producerRecords;
+        this.metadata = new AtomicReferenceArray<>(producerRecords.size());
+        this.errors = new AtomicReferenceArray<>(producerRecords.size());
+        this.pending = new AtomicInteger(producerRecords.size());
+        if (producerRecords.isEmpty()) {
+            complete();
+        }
+    }
+
+    public Callback callback(int index) {
+        return (recordMetadata, exception) -> onCompletion(index, recordMetadata, exception);
+    }
+
+    public void onCompletion(int index, RecordMetadata recordMetadata, Exception exception) {
+        if (exception != null) {
+            errors.set(index, exception);
+        } else {
+            metadata.set(index, recordMetadata);
+        }
+        if (pending.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    public CompletableFuture<SendResult> getFuture() {
+        return future;
+    }
+
+    private void complete() {
+        List<RecordMetadata> succeededRecords = new ArrayList<>(producerRecords.size());
+        List<ProducerRecord<byte[], byte[]>> failedRecords = new ArrayList<>();
+        Map<ProducerRecord<byte[], byte[]>, Exception> failures = new IdentityHashMap<>();
+        for (int i = 0; i < producerRecords.size(); i++) {
+            Exception exception = errors.get(i);
+            if (exception != null) {
+                failedRecords.add(producerRecords.get(i));
+                failures.put(producerRecords.get(i), exception);
+            } else {
+                succeededRecords.add(metadata.get(i));
+            }
+        }
+        future.complete(new SendResult(succeededRecords, failedRecords, failures));
+    }
+}
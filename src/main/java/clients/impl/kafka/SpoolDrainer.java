@@ -0,0 +1,108 @@
+package clients.impl.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Replays spooled records a batch at a time. The spool is only consumed from delivery callbacks, over the run of
+ * acknowledged records at the head of the batch, so a crash or a failed delivery leaves the rest spooled and the next
+ * batch starts again from the oldest unacknowledged record.
+ */
+@Slf4j
+public class SpoolDrainer {
+
+    private final RecordSpool recordSpool;
+    private final BiConsumer<ProducerRecord<byte[], byte[]>, Callback> sender;
+    private final int recordsPerDrain;
+    private final AtomicBoolean batchInFlight = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    public SpoolDrainer(RecordSpool recordSpool, BiConsumer<ProducerRecord<byte[], byte[]>, Callback> sender,
+                        int drainRatePerSecond, long drainInterval) {
+        this.recordSpool = recordSpool;
+        this.sender = sender;
+        this.recordsPerDrain = (int) Math.max(1, drainRatePerSecond * drainInterval / 1000);
+    }
+
+    public void start(long drainInterval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-spool-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, drainInterval, drainInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void run() {
+        // Peeking while a batch is unacknowledged would send its records a second time
+        if (!batchInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<RecordSpool.SpooledRecord> spooledRecords = recordSpool.peek(recordsPerDrain);
+            if (spooledRecords.isEmpty()) {
+                batchInFlight.set(false);
+                return;
+            }
+            Batch batch = new Batch(spooledRecords);
+            for (int i = 0; i < spooledRecords.size(); i++) {
+                int index = i;
+                try {
+                    sender.accept(spooledRecords.get(i).getProducerRecord(),
+                            (recordMetadata, exception) -> batch.onCompletion(index, exception));
+                } catch (Exception e) {
+                    batch.onCompletion(index, e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error while draining kafka spool", e);
+            batchInFlight.set(false);
+        }
+    }
+
+    private class Batch {
+        private final List<RecordSpool.SpooledRecord> spooledRecords;
+        private final boolean[] acked;
+        private int committed;
+        private int completed;
+
+        private Batch(List<RecordSpool.SpooledRecord> spooledRecords) {
+            this.spooledRecords = spooledRecords;
+            this.acked = new boolean[spooledRecords.size()];
+        }
+
+        private synchronized void onCompletion(int index, Exception exception) {
+            if (exception == null) {
+                acked[index] = true;
+                int acknowledged = committed;
+                while (acknowledged < acked.length && acked[acknowledged]) {
+                    acknowledged++;
+                }
+                if (acknowledged > committed) {
+                    recordSpool.commit(spooledRecords.get(acknowledged - 1));
+                    committed = acknowledged;
+                }
+            } else {
+                log.error("Error replaying spooled record for topic {}",
+                        spooledRecords.get(index).getProducerRecord().topic(), exception);
+            }
+            if (++completed == acked.length) {
+                batchInFlight.set(false);
+            }
+        }
+    }
+}
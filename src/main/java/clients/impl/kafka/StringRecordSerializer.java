@@ -0,0 +1,19 @@
+package clients.impl.kafka;
+
+import java.nio.charset.StandardCharsets;
+
+public class StringRecordSerializer implements RecordSerializer<Object> {
+
+    public static final StringRecordSerializer INSTANCE = new StringRecordSerializer();
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
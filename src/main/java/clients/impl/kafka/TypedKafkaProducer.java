@@ -0,0 +1,38 @@
+package clients.impl.kafka;
+
+import clients.impl.KafkaProducerClient;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.concurrent.CompletableFuture;
+
+public class TypedKafkaProducer<K, V> {
+
+    private final KafkaProducerClient kafkaProducerClient;
+    private final RecordSerializer<? super K> keySerializer;
+    private final RecordSerializer<? super V> valueSerializer;
+
+    public TypedKafkaProducer(KafkaProducerClient kafkaProducerClient, RecordSerializer<? super K> keySerializer,
+                              RecordSerializer<? super V> valueSerializer) {
+        this.kafkaProducerClient = kafkaProducerClient;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+    }
+
+    public CompletableFuture<RecordMetadata> send(K key, V value) {
+        return send(kafkaProducerClient.getDefaultTopic(), key, value);
+    }
+
+    public CompletableFuture<RecordMetadata> send(String topic, K key, V value) {
+        byte[] keyBytes;
+        byte[] valueBytes;
+        try {
+            keyBytes = keySerializer.serialize(key);
+            valueBytes = valueSerializer.serialize(value);
+        } catch (Exception e) {
+            CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return kafkaProducerClient.send(topic, keyBytes, valueBytes);
+    }
+}
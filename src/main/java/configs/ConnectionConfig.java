@@ -4,4 +4,6 @@ import enums.ClientTypes;
 
 public interface ConnectionConfig {
     ClientTypes getClientType();
+
+    String getClientKey();
 }
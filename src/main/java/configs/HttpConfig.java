@@ -1,8 +1,16 @@
 package configs;
 
 import enums.ClientTypes;
+import enums.ContentCoding;
+import enums.LoadBalancingStrategy;
+import enums.WireFormat;
 import lombok.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,14 +20,128 @@ import lombok.*;
 public class HttpConfig implements ConnectionConfig {
     private String host;
     private int port;
+    @Builder.Default
     private int maxTotal = 2;
+    @Builder.Default
     private int maxPerHost = 2;
+    @Builder.Default
     private int socketTimeout = 10000;
+    @Builder.Default
     private int connectionTimeout = 10000;
+    @Builder.Default
     private int connectionRequestTimeout = 10000;
+    @Builder.Default
+    private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    private int maxInFlight = 1000;
+    @Builder.Default
+    private int maxInFlightPerRoute = 1000;
+    @Builder.Default
+    private long inFlightAcquireTimeout = 0;
+    @Builder.Default
+    private int responseBufferPoolSize = 64;
+    @Builder.Default
+    private int responseBufferSize = 8192;
+    @Builder.Default
+    private int maxPooledResponseBufferSize = 1048576;
+    @Builder.Default
+    private Map<String, Integer> maxPerRoute = new HashMap<>();
+    @Builder.Default
+    private long connectionTimeToLive = -1;
+    @Builder.Default
+    private long idleConnectionTimeout = 30000;
+    @Builder.Default
+    private long evictionInterval = 5000;
+    @Builder.Default
+    private int validateAfterInactivity = 2000;
+    @Builder.Default
+    private List<String> endpoints = new ArrayList<>();
+    @Builder.Default
+    private LoadBalancingStrategy loadBalancingStrategy = LoadBalancingStrategy.roundRobin;
+    @Builder.Default
+    private int outlierConsecutiveFailures = 5;
+    @Builder.Default
+    private long outlierEjectionTime = 30000;
+    @Builder.Default
+    private int maxEjectionPercent = 50;
+    @Builder.Default
+    private boolean hedgingEnabled = false;
+    @Builder.Default
+    private double hedgePercentile = 0.95;
+    @Builder.Default
+    private long hedgeMinDelay = 5;
+    @Builder.Default
+    private int maxRetries = 0;
+    @Builder.Default
+    private long retryBackoff = 20;
+    @Builder.Default
+    private long maxRetryBackoff = 1000;
+    @Builder.Default
+    private double retryBudgetRatio = 0.1;
+    @Builder.Default
+    private int retryBudgetMaxTokens = 10;
+    @Builder.Default
+    private boolean circuitBreakerEnabled = false;
+    @Builder.Default
+    private int circuitBreakerFailureRateThreshold = 50;
+    @Builder.Default
+    private int circuitBreakerWindowSize = 100;
+    @Builder.Default
+    private int circuitBreakerMinimumRequests = 20;
+    @Builder.Default
+    private long circuitBreakerOpenTime = 10000;
+    @Builder.Default
+    private int circuitBreakerHalfOpenRequests = 5;
+    @Builder.Default
+    private boolean adaptiveConcurrencyEnabled = false;
+    @Builder.Default
+    private int adaptiveConcurrencyInitialLimit = 20;
+    @Builder.Default
+    private int adaptiveConcurrencyMinLimit = 1;
+    @Builder.Default
+    private int adaptiveConcurrencyMaxLimit = 200;
+    @Builder.Default
+    private boolean requestCoalescingEnabled = false;
+    @Builder.Default
+    private boolean responseCacheEnabled = false;
+    @Builder.Default
+    private long responseCacheMaxWeight = 64 * 1024 * 1024;
+    @Builder.Default
+    private long responseCacheTtl = 1000;
+    @Builder.Default
+    private List<String> cacheKeyHeaders = new ArrayList<>();
+    @Builder.Default
+    private int postBatchMaxSize = 50;
+    @Builder.Default
+    private long postBatchWindow = 5;
+    @Builder.Default
+    private boolean phaseTimingEnabled = false;
+    @Builder.Default
+    private long slowRequestThreshold = 1000;
+    @Builder.Default
+    private double slowRequestLogSampleRate = 0.01;
+    @Builder.Default
+    private WireFormat wireFormat = WireFormat.json;
+    @Builder.Default
+    private Map<String, WireFormat> pathWireFormats = new HashMap<>();
+    @Builder.Default
+    private ContentCoding requestCompression = ContentCoding.identity;
+    @Builder.Default
+    private int requestCompressionThreshold = 1024;
+    @Builder.Default
+    private int requestCompressionLevel = 6;
+    @Builder.Default
+    private boolean responseDecompressionEnabled = true;
+    @Builder.Default
+    private int compressorPoolSize = 64;
 
     @Override
     public ClientTypes getClientType() {
         return ClientTypes.http;
     }
+
+    @Override
+    public String getClientKey() {
+        return getClientType() + "|" + (endpoints.isEmpty() ? host + ":" + port : String.join(",", endpoints));
+    }
 }
@@ -0,0 +1,47 @@
+package configs;
+
+import enums.ClientTypes;
+import enums.ConsumerFailurePolicy;
+import enums.ConsumerOrdering;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class KafkaConsumerConfig implements ConnectionConfig {
+    private String brokerConnectionString;
+    private String groupId;
+    private List<String> topics = new ArrayList<>();
+    private String autoOffsetReset = "latest";
+    private int sessionTimeout = 30000;
+    private int maxPollRecords = 500;
+    private long pollTimeout = 100;
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private ConsumerOrdering ordering = ConsumerOrdering.key;
+    private int maxPendingRecords = 10000;
+    private long commitInterval = 1000;
+    private long revokeTimeout = 5000;
+    private ConsumerFailurePolicy failurePolicy = ConsumerFailurePolicy.skip;
+    private long retryBackoff = 1000;
+    private String keyDeserializerClass = "org.apache.kafka.common.serialization.ByteArrayDeserializer";
+    private String valueDeserializerClass = "org.apache.kafka.common.serialization.ByteArrayDeserializer";
+
+    @Override
+    public ClientTypes getClientType() {
+        return ClientTypes.kafkaConsumer;
+    }
+
+    @Override
+    public String getClientKey() {
+        return getClientType() + "|" + brokerConnectionString + "|" + groupId + "|" + String.join(",", topics);
+    }
+}
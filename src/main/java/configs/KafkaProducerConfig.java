@@ -1,12 +1,15 @@
 package configs;
 
 import enums.ClientTypes;
+import enums.ProducerSelectionStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
 @AllArgsConstructor
 public class KafkaProducerConfig implements ConnectionConfig {
     private String brokerConnectionString;
@@ -24,9 +27,25 @@ public class KafkaProducerConfig implements ConnectionConfig {
     private String ackConfig;
     private String keySerializerClass = "org.apache.kafka.common.serialization.ByteArraySerializer";
     private String valueSerializerClass = "org.apache.kafka.common.serialization.ByteArraySerializer";
+    private ProducerSelectionStrategy producerSelectionStrategy = ProducerSelectionStrategy.roundRobin;
+    private boolean spoolEnabled = false;
+    private String spoolPath = "kafka-spool";
+    private int spoolSegmentSize = 64 * 1024 * 1024;
+    private int spoolDrainRatePerSecond = 1000;
+    private long spoolDrainInterval = 100;
+    private double bufferHighWatermark = 0.8;
+    private double maxRecordQueueTimeMs = 100;
+    private boolean adaptiveProducerCountEnabled = false;
+    private int minActiveProducers = 1;
+    private long loadSampleInterval = 1000;
 
     @Override
     public ClientTypes getClientType() {
         return ClientTypes.kafka;
     }
+
+    @Override
+    public String getClientKey() {
+        return getClientType() + "|" + brokerConnectionString + "|" + topicName;
+    }
 }
@@ -0,0 +1,36 @@
+package configs;
+
+import enums.LoadMode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class LoadConfig {
+    private LoadMode mode = LoadMode.closed;
+    private String path = "/productService/getCustomProductDetails";
+    private Map<String, Object> payload = new HashMap<>();
+    private Map<String, String> headers = new HashMap<>();
+    private int rate = 1000;
+    private long duration = 60;
+    private long rampUp = 0;
+    private List<LoadStage> stages = new ArrayList<>();
+    private long warmup = 0;
+    private int maxOutstanding = 10000;
+    private long reportInterval = 5;
+    private boolean postBatchingEnabled = false;
+
+    public List<LoadStage> getProfile() {
+        return stages.isEmpty() ? Collections.singletonList(new LoadStage(rate, duration, rampUp)) : stages;
+    }
+}
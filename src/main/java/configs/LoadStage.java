@@ -0,0 +1,18 @@
+package configs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadStage {
+    private int rate;
+    private long duration;
+    private long rampUp;
+}
@@ -0,0 +1,18 @@
+package configs;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class MetricsConfig {
+    // 0 disables the Prometheus endpoint
+    private int prometheusPort = 0;
+    // null disables the periodic file dump
+    private String reportFile;
+    private long reportInterval = 10;
+}
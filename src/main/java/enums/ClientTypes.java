@@ -1,5 +1,5 @@
 package enums;
 
 public enum ClientTypes {
-    http, kafka
+    http, kafka, kafkaConsumer
 }
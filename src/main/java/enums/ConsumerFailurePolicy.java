@@ -0,0 +1,11 @@
+package enums;
+
+/**
+ * What the consumer does when the record handler throws. With {@code skip} the failure is logged and the record's
+ * offset is committed like any other, so failed records are not redelivered (at-most-once for them). With
+ * {@code retry} the record is handled again after a backoff until it succeeds; its offset is not committed meanwhile,
+ * so a record still failing at shutdown or on rebalance is redelivered (at-least-once).
+ */
+public enum ConsumerFailurePolicy {
+    skip, retry
+}
@@ -0,0 +1,22 @@
+package enums;
+
+public enum ContentCoding {
+    identity,
+    gzip,
+    deflate;
+
+    // x-gzip is the legacy alias servers still send; anything else is left for the caller to read as is
+    public static ContentCoding fromHeader(String contentEncoding) {
+        if (contentEncoding == null) {
+            return identity;
+        }
+        String coding = contentEncoding.trim();
+        if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+            return gzip;
+        }
+        if (coding.equalsIgnoreCase("deflate")) {
+            return deflate;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package enums;
+
+/**
+ * Request body encodings. When a server answers a smile or cbor body with 415 Unsupported Media Type, the client
+ * sends JSON to that path from then on. The rejected request itself fails with the 415 and is not resent.
+ */
+public enum WireFormat {
+    json("application/json"),
+    smile("application/x-jackson-smile"),
+    cbor("application/cbor");
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // Unknown or missing content types are read as JSON
+    public static WireFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            for (WireFormat format : values()) {
+                if (contentType.regionMatches(true, 0, format.contentType, 0, format.contentType.length())) {
+                    return format;
+                }
+            }
+        }
+        return json;
+    }
+}
@@ -2,56 +2,105 @@ package factory;
 
 import clients.Client;
 import clients.impl.HttpClient;
+import clients.impl.KafkaConsumerClient;
 import clients.impl.KafkaProducerClient;
 import configs.ConnectionConfig;
 import configs.HttpConfig;
+import configs.KafkaConsumerConfig;
 import configs.KafkaProducerConfig;
-import enums.ClientTypes;
 import exceptions.ClientCreateException;
 import exceptions.ClientFactoryException;
 
-public class ClientFactory {
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
-    private static final Object HTTP_LOCK = new Object();
-    private static final Object KAFKA_LOCK = new Object();
+public class ClientFactory {
 
-    private static HttpClient httpClient;
-    private static KafkaProducerClient kafkaProducerClient;
+    private static final ConcurrentMap<String, ClientEntry> clients = new ConcurrentHashMap<>();
 
     public static Client getClient(ConnectionConfig connectionConfig) throws ClientFactoryException {
+        try {
+            String clientKey = connectionConfig.getClientKey();
+            ClientEntry clientEntry = clients.get(clientKey);
+            if (clientEntry != null && clientEntry.retain()) {
+                return clientEntry.client;
+            }
+            // An entry that was released to zero is being closed, so it is replaced rather than revived
+            return clients.compute(clientKey, (key, existing) ->
+                    existing != null && existing.retain() ? existing : new ClientEntry(createClient(connectionConfig))).client;
+        } catch (ClientCreationFailure e) {
+            // compute leaves the map untouched when the mapping function throws, so a failed client is never cached
+            throw new ClientFactoryException("Error getting client", e.getCause(),
+                    ClientFactoryException.ErrorCode.GET_CLIENT_FAILURE);
+        } catch (Throwable e) {
+            throw new ClientFactoryException("Error getting client", e, ClientFactoryException.ErrorCode.GET_CLIENT_FAILURE);
+        }
+    }
+
+    public static void releaseClient(ConnectionConfig connectionConfig) {
+        String clientKey = connectionConfig.getClientKey();
+        ClientEntry clientEntry = clients.get(clientKey);
+        if (clientEntry != null && clientEntry.release()) {
+            clients.remove(clientKey, clientEntry);
+            clientEntry.client.close();
+        }
+    }
+
+    public static void closeAll() {
+        clients.forEach((key, clientEntry) -> {
+            if (clients.remove(key, clientEntry)) {
+                clientEntry.client.close();
+            }
+        });
+    }
+
+    private static Client createClient(ConnectionConfig connectionConfig) {
         try {
             switch (connectionConfig.getClientType()) {
                 case http:
-                    return getHttpClient((HttpConfig) connectionConfig);
+                    return new HttpClient((HttpConfig) connectionConfig);
                 case kafka:
-                    return getKafkaProducerClient((KafkaProducerConfig) connectionConfig);
+                    return new KafkaProducerClient((KafkaProducerConfig) connectionConfig);
+                case kafkaConsumer:
+                    return new KafkaConsumerClient((KafkaConsumerConfig) connectionConfig);
                 default:
-                    throw new ClientFactoryException("Error getting client", ClientFactoryException.ErrorCode.CLIENT_NOT_FOUND);
+                    throw new IllegalArgumentException("Unsupported client type " + connectionConfig.getClientType());
             }
-        } catch (Throwable e) {
-            throw new ClientFactoryException("Error getting client", e, ClientFactoryException.ErrorCode.GET_CLIENT_FAILURE);
+        } catch (ClientCreateException e) {
+            throw new ClientCreationFailure(e);
         }
     }
 
-    private static HttpClient getHttpClient(HttpConfig httpConfig) {
-        if (null == httpClient) {
-            synchronized (HTTP_LOCK) {
-                if (null == httpClient) {
-                    httpClient = new HttpClient(httpConfig);
-                }
-            }
+    // Carries the checked ClientCreateException out of the compute mapping function
+    private static class ClientCreationFailure extends RuntimeException {
+        private ClientCreationFailure(ClientCreateException cause) {
+            super(cause);
         }
-        return httpClient;
     }
 
-    private static KafkaProducerClient getKafkaProducerClient(KafkaProducerConfig kafkaProducerConfig) {
-        if (null == kafkaProducerClient) {
-            synchronized (KAFKA_LOCK) {
-                if (null == kafkaProducerClient) {
-                    kafkaProducerClient = new KafkaProducerClient(kafkaProducerConfig);
+    private static class ClientEntry {
+        private final Client client;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private ClientEntry(Client client) {
+            this.client = client;
+        }
+
+        private boolean retain() {
+            while (true) {
+                int current = references.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (references.compareAndSet(current, current + 1)) {
+                    return true;
                 }
             }
         }
-        return kafkaProducerClient;
+
+        private boolean release() {
+            return references.decrementAndGet() == 0;
+        }
     }
 }
@@ -0,0 +1,43 @@
+package load;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class LoadReport {
+    private long sent;
+    private long succeeded;
+    private long dropped;
+    private Map<String, Long> errors;
+    private long elapsedMillis;
+    private Histogram latencyMicros;
+
+    public double getThroughput() {
+        return succeeded * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("sent=%d succeeded=%d dropped=%d elapsed=%.1fs throughput=%.1f/s%n", sent,
+                succeeded, dropped, elapsedMillis / 1000.0, getThroughput()));
+        report.append(String.format("latency ms p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f p99.99=%.2f max=%.2f%n",
+                getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99), getPercentileMillis(99.9),
+                getPercentileMillis(99.99), latencyMicros.getMaxValue() / 1000.0));
+        if (errors.isEmpty()) {
+            report.append("errors none");
+        } else {
+            report.append("errors");
+            errors.forEach((type, count) -> report.append(' ').append(type).append('=').append(count));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package load;
+
+import configs.LoadStage;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.http.client.HttpResponseException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+public class OpenLoopRunner {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    public interface Request {
+        CompletableFuture<?> send() throws Exception;
+    }
+
+    private final List<LoadStage> profile;
+    private final long warmup;
+    private final int maxOutstanding;
+    private final long reportInterval;
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    // The first warmup seconds of the profile are sent but left out of the report
+    public OpenLoopRunner(List<LoadStage> profile, long warmup, int maxOutstanding, long reportInterval) {
+        this.profile = profile;
+        this.warmup = warmup;
+        this.maxOutstanding = maxOutstanding;
+        this.reportInterval = reportInterval;
+    }
+
+    public LoadReport run(Request request) throws InterruptedException {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "open-loop-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (reportInterval > 0) {
+            reporter.scheduleAtFixedRate(this::reportInterval, reportInterval, reportInterval, TimeUnit.SECONDS);
+        }
+        long sent = 0;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long stageStart = start;
+        double previousRate = 0;
+        for (LoadStage stage : profile) {
+            log.info("Starting load stage {}", stage);
+            double rampNanos = stage.getRampUp() * NANOS_PER_SECOND;
+            double stageNanos = rampNanos + stage.getDuration() * NANOS_PER_SECOND;
+            double offset = 0;
+            while (offset < stageNanos) {
+                long intendedStart = stageStart + (long) offset;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                boolean measured = intendedStart >= measureFrom;
+                send(request, intendedStart, measured);
+                if (measured) {
+                    sent++;
+                }
+                double rate = offset < rampNanos ? previousRate + (stage.getRate() - previousRate) * offset / rampNanos
+                        : stage.getRate();
+                offset += NANOS_PER_SECOND / Math.max(1, rate);
+            }
+            stageStart += (long) stageNanos;
+            previousRate = stage.getRate();
+        }
+        long elapsed = Math.max(0, stageStart - measureFrom);
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        reporter.shutdownNow();
+        synchronized (total) {
+            total.add(recorder.getIntervalHistogram());
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((type, count) -> errorCounts.put(type, count.sum()));
+            return new LoadReport(sent, succeeded.get(), dropped.get(), errorCounts,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), total.copy());
+        }
+    }
+
+    private void send(Request request, long intendedStart, boolean measured) {
+        // Beyond maxOutstanding the target is not keeping up; counting the request as dropped keeps the schedule honest
+        if (outstanding.get() >= maxOutstanding) {
+            if (measured) {
+                dropped.incrementAndGet();
+            }
+            return;
+        }
+        outstanding.incrementAndGet();
+        CompletableFuture<?> future;
+        try {
+            future = request.send();
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((result, throwable) -> {
+            outstanding.decrementAndGet();
+            if (!measured) {
+                return;
+            }
+            // Latency counts from the intended send time, so time spent queued behind a slow request is not hidden
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+            if (throwable == null) {
+                succeeded.incrementAndGet();
+            } else {
+                errors.computeIfAbsent(errorType(throwable), type -> new LongAdder()).increment();
+            }
+        });
+    }
+
+    private void reportInterval() {
+        Histogram interval = recorder.getIntervalHistogram();
+        synchronized (total) {
+            total.add(interval);
+        }
+        log.info("Last {}s: requests={} rate={}/s p50={}ms p99={}ms max={}ms outstanding={}", reportInterval,
+                interval.getTotalCount(), interval.getTotalCount() / reportInterval,
+                interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0, outstanding.get());
+    }
+
+    private static String errorType(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof HttpResponseException) {
+                return "HTTP " + ((HttpResponseException) current).getStatusCode();
+            }
+            if (current.getCause() == null) {
+                return current.getClass().getSimpleName();
+            }
+        }
+        return cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,23 @@
+package models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class SendResult {
+    private List<RecordMetadata> succeededRecords;
+    private List<ProducerRecord<byte[], byte[]>> failedRecords;
+    private Map<ProducerRecord<byte[], byte[]>, Exception> errors;
+
+    public boolean isSuccess() {
+        return failedRecords.isEmpty();
+    }
+}
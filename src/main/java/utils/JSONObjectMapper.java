@@ -1,26 +1,105 @@
 package utils;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import enums.WireFormat;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared mappers for every {@link WireFormat} plus YAML. {@link #reader} and {@link #writer} hand out prebuilt, cached
+ * ObjectReader/ObjectWriter instances so the request path skips the mapper's per-call type resolution.
+ * Afterburner bytecode generation is switched on for the whole process with {@code -Djson.afterburner=true}; the
+ * mappers are built once, so the setting cannot change under readers and writers that are already handed out.
+ */
 public enum JSONObjectMapper {
     INSTANCE;
 
-    private ObjectMapper objectMapper;
-    private ObjectMapper yamlMapper;
+    public static final String AFTERBURNER_PROPERTY = "json.afterburner";
+
+    private final Map<WireFormat, ObjectMapper> mappers;
+    private final ObjectMapper yamlMapper;
+    private final Map<WireFormat, ConcurrentMap<Class<?>, ObjectReader>> readers;
+    private final Map<WireFormat, ConcurrentMap<Class<?>, ObjectWriter>> writers;
+    private final boolean afterburnerEnabled;
 
     JSONObjectMapper() {
-        this.objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.readers = new EnumMap<>(WireFormat.class);
+        this.writers = new EnumMap<>(WireFormat.class);
+        for (WireFormat format : WireFormat.values()) {
+            readers.put(format, new ConcurrentHashMap<>());
+            writers.put(format, new ConcurrentHashMap<>());
+        }
+        this.afterburnerEnabled = Boolean.getBoolean(AFTERBURNER_PROPERTY);
+        this.mappers = createMappers(afterburnerEnabled);
         this.yamlMapper = new ObjectMapper(new YAMLFactory());
         yamlMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
 
+    public static ObjectMapper createMapper(boolean afterburner) {
+        return createMapper(new JsonFactory(), afterburner);
+    }
+
+    public static ObjectMapper createMapper(JsonFactory factory, boolean afterburner) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        if (afterburner) {
+            mapper.registerModule(new AfterburnerModule());
+        }
+        return mapper;
+    }
+
+    private static Map<WireFormat, ObjectMapper> createMappers(boolean afterburner) {
+        Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+        mappers.put(WireFormat.json, createMapper(new JsonFactory(), afterburner));
+        mappers.put(WireFormat.smile, createMapper(new SmileFactory(), afterburner));
+        mappers.put(WireFormat.cbor, createMapper(new CBORFactory(), afterburner));
+        return mappers;
+    }
+
     public ObjectMapper getMapper() {
-        return objectMapper;
+        return getMapper(WireFormat.json);
     }
+
+    public ObjectMapper getMapper(WireFormat format) {
+        return mappers.get(format);
+    }
+
     public ObjectMapper getYamlMapper() {
         return yamlMapper;
     }
+
+    public ObjectReader reader(Class<?> type) {
+        return reader(WireFormat.json, type);
+    }
+
+    public ObjectReader reader(WireFormat format, Class<?> type) {
+        ConcurrentMap<Class<?>, ObjectReader> formatReaders = readers.get(format);
+        ObjectReader reader = formatReaders.get(type);
+        return reader != null ? reader : formatReaders.computeIfAbsent(type, key -> getMapper(format).readerFor(key));
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return writer(WireFormat.json, type);
+    }
+
+    public ObjectWriter writer(WireFormat format, Class<?> type) {
+        ConcurrentMap<Class<?>, ObjectWriter> formatWriters = writers.get(format);
+        ObjectWriter writer = formatWriters.get(type);
+        return writer != null ? writer : formatWriters.computeIfAbsent(type, key -> getMapper(format).writerFor(key));
+    }
+
+    public boolean isAfterburnerEnabled() {
+        return afterburnerEnabled;
+    }
 }
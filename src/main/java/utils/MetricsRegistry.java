@@ -1,17 +1,42 @@
 package utils;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import configs.MetricsConfig;
+import lombok.extern.slf4j.Slf4j;
+import utils.metrics.FileMetricsReporter;
+import utils.metrics.HdrHistogramReservoir;
+import utils.metrics.PrometheusExporter;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Timers and histograms use an HdrHistogram reservoir. Hot paths should resolve their handles once through
+ * {@link #meter}, {@link #timer} or {@link #histogram} and keep them, {@link #markMeter} and {@link #timerContext}
+ * build the name and look it up on every call.
+ */
+@Slf4j
 public enum MetricsRegistry {
     INSTANCE;
+    private static final MetricRegistry.MetricSupplier<Timer> HDR_TIMER = () -> new Timer(new HdrHistogramReservoir());
+    private static final MetricRegistry.MetricSupplier<Histogram> HDR_HISTOGRAM =
+            () -> new Histogram(new HdrHistogramReservoir());
+
     private MetricRegistry metricRegistry;
+    private List<Closeable> exporters;
 
     MetricsRegistry() {
         metricRegistry = new MetricRegistry();
+        exporters = new CopyOnWriteArrayList<>();
         JmxReporter jmxReporter = JmxReporter.forRegistry(metricRegistry)
                 .convertRatesTo(TimeUnit.SECONDS)
                 .convertDurationsTo(TimeUnit.MILLISECONDS)
@@ -23,11 +48,63 @@ public enum MetricsRegistry {
         return metricRegistry;
     }
 
+    public synchronized void startExporters(MetricsConfig metricsConfig) throws IOException {
+        if (metricsConfig.getPrometheusPort() > 0) {
+            PrometheusExporter prometheusExporter = new PrometheusExporter(metricRegistry,
+                    metricsConfig.getPrometheusPort());
+            prometheusExporter.start();
+            exporters.add(prometheusExporter);
+        }
+        if (metricsConfig.getReportFile() != null) {
+            FileMetricsReporter fileReporter = new FileMetricsReporter(metricRegistry,
+                    Paths.get(metricsConfig.getReportFile()));
+            fileReporter.start(metricsConfig.getReportInterval(), TimeUnit.SECONDS);
+            exporters.add(fileReporter);
+        }
+    }
+
+    public synchronized void stopExporters() {
+        for (Closeable exporter : exporters) {
+            try {
+                exporter.close();
+            } catch (Exception e) {
+                log.error("Error closing metrics exporter", e);
+            }
+        }
+        exporters.clear();
+    }
+
+    public static Meter meter(Class<?> callerClass, String... names) {
+        return INSTANCE.getRegistry().meter(MetricRegistry.name(callerClass, names));
+    }
+
+    public static Histogram histogram(Class<?> callerClass, String... names) {
+        return INSTANCE.getRegistry().histogram(MetricRegistry.name(callerClass, names), HDR_HISTOGRAM);
+    }
+
     public static void markMeter(Class<?> callerClass, long count, String... names) {
-        INSTANCE.getRegistry().meter(MetricRegistry.name(callerClass, names)).mark(count);
+        meter(callerClass, names).mark(count);
+    }
+
+    public static void registerGauge(Class<?> callerClass, Gauge<?> gauge, String... names) {
+        String name = MetricRegistry.name(callerClass, names);
+        INSTANCE.getRegistry().remove(name);
+        INSTANCE.getRegistry().register(name, gauge);
+    }
+
+    public static void removeMetrics(Class<?> callerClass, String... names) {
+        // Matching on the dot keeps host:80 from also removing the metrics of host:8080
+        String name = MetricRegistry.name(callerClass, names);
+        String prefix = name + ".";
+        INSTANCE.getRegistry().removeMatching((metricName, metric) -> metricName.equals(name)
+                || metricName.startsWith(prefix));
+    }
+
+    public static Timer timer(Class<?> callerClass, String... names) {
+        return INSTANCE.getRegistry().timer(MetricRegistry.name(callerClass, names), HDR_TIMER);
     }
 
     public static Timer.Context timerContext(Class<?> callerClass, String... names) {
-        return INSTANCE.getRegistry().timer(MetricRegistry.name(callerClass, names)).time();
+        return timer(callerClass, names).time();
     }
 }
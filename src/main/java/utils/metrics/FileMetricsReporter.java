@@ -0,0 +1,56 @@
+package utils.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically dumps the registry to a file in the Prometheus text format. The file is replaced atomically, so it
+ * can be picked up by a textfile collector or tailed without ever seeing a partial write.
+ */
+@Slf4j
+public class FileMetricsReporter extends ScheduledReporter {
+
+    private final MetricRegistry registry;
+    private final Path path;
+    private final Path tempPath;
+
+    public FileMetricsReporter(MetricRegistry registry, Path path) {
+        super(registry, "metrics-file-reporter", MetricFilter.ALL, TimeUnit.SECONDS, TimeUnit.SECONDS);
+        this.registry = registry;
+        this.path = path;
+        this.tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    @Override
+    public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+                       SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
+                       SortedMap<String, Timer> timers) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                PrometheusTextFormat.write(writer, registry);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Error writing metrics to {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package utils.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reservoir backed by an HdrHistogram {@link Recorder}. Updates are wait-free and keep every sample, so tail
+ * percentiles are exact to the configured precision instead of being sampled away. The windows roll on a clock, so
+ * however rarely snapshots are taken they cover the current and the previous window, between one and two windows
+ * of recent history.
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long DEFAULT_WINDOW = TimeUnit.MINUTES.toNanos(1);
+    private static final ScheduledThreadPoolExecutor ROLLER = roller();
+
+    private final Recorder recorder;
+    private final LongAdder sum = new LongAdder();
+    private Histogram intervalHistogram;
+    private Histogram current;
+    private Histogram previous;
+
+    public HdrHistogramReservoir() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public HdrHistogramReservoir(long window) {
+        this.recorder = new Recorder(SIGNIFICANT_DIGITS);
+        this.current = new Histogram(SIGNIFICANT_DIGITS);
+        this.previous = new Histogram(SIGNIFICANT_DIGITS);
+        new Roll(this).schedule(window);
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(long value) {
+        long recorded = Math.max(0, value);
+        recorder.recordValue(recorded);
+        sum.add(recorded);
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        collect();
+        Histogram merged = previous.copy();
+        merged.add(current);
+        return new HdrSnapshot(merged, sum.sum());
+    }
+
+    private synchronized void roll() {
+        collect();
+        Histogram recycled = previous;
+        previous = current;
+        recycled.reset();
+        current = recycled;
+    }
+
+    private void collect() {
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        current.add(intervalHistogram);
+    }
+
+    private static ScheduledThreadPoolExecutor roller() {
+        ScheduledThreadPoolExecutor roller = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "hdr-reservoir-roller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        roller.setRemoveOnCancelPolicy(true);
+        return roller;
+    }
+
+    // Removed metrics are never closed, so the roller only holds them weakly and drops the task once they are gone
+    private static class Roll implements Runnable {
+
+        private final WeakReference<HdrHistogramReservoir> reservoir;
+        private volatile ScheduledFuture<?> future;
+
+        Roll(HdrHistogramReservoir reservoir) {
+            this.reservoir = new WeakReference<>(reservoir);
+        }
+
+        void schedule(long window) {
+            future = ROLLER.scheduleAtFixedRate(this, window, window, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            HdrHistogramReservoir target = reservoir.get();
+            if (target != null) {
+                target.roll();
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
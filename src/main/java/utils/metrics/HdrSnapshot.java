@@ -0,0 +1,85 @@
+package utils.metrics;
+
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Snapshot over an HdrHistogram window. Besides the windowed statistics it carries the sum of every value the
+ * reservoir has recorded, which matches the lifetime count of the owning Timer or Histogram.
+ */
+public class HdrSnapshot extends Snapshot {
+
+    private final Histogram histogram;
+    private final long totalSum;
+
+    public HdrSnapshot(Histogram histogram, long totalSum) {
+        this.histogram = histogram;
+        this.totalSum = totalSum;
+    }
+
+    public long getTotalSum() {
+        return totalSum;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+        return histogram.getValueAtPercentile(quantile * 100);
+    }
+
+    // One entry per sample, as size() reports, so this allocates size() longs; the statistics getters do not
+    @Override
+    public long[] getValues() {
+        long[] values = new long[size()];
+        int size = 0;
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            long bucketValue = histogram.highestEquivalentValue(value.getValueIteratedTo());
+            for (long i = 0; i < value.getCountAtValueIteratedTo() && size < values.length; i++) {
+                values[size++] = bucketValue;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(histogram.getTotalCount(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+        return histogram.getMaxValue();
+    }
+
+    @Override
+    public double getMean() {
+        return histogram.getMean();
+    }
+
+    @Override
+    public long getMin() {
+        return histogram.getMinValue();
+    }
+
+    @Override
+    public double getStdDev() {
+        return histogram.getStdDeviation();
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (HistogramIterationValue value : histogram.recordedValues()) {
+                long bucketValue = histogram.highestEquivalentValue(value.getValueIteratedTo());
+                for (long i = 0; i < value.getCountAtValueIteratedTo(); i++) {
+                    writer.printf("%d%n", bucketValue);
+                }
+            }
+        }
+    }
+}
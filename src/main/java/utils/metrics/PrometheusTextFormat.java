@@ -0,0 +1,106 @@
+package utils.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a {@link MetricRegistry} in the Prometheus text exposition format (version 0.0.4).
+ * Timers are exported in seconds as summaries, meters as counters and numeric gauges as gauges.
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99, 0.999, 0.9999};
+    private static final double SECONDS_PER_NANO = 1.0 / TimeUnit.SECONDS.toNanos(1);
+
+    private PrometheusTextFormat() {
+    }
+
+    public static void write(Writer writer, MetricRegistry registry) throws IOException {
+        Set<String> names = new HashSet<>();
+        for (Map.Entry<String, Metric> entry : registry.getMetrics().entrySet()) {
+            String name = unique(sanitize(entry.getKey()), names);
+            Metric metric = entry.getValue();
+            if (metric instanceof Timer) {
+                writeSummary(writer, name + "_seconds", ((Timer) metric).getSnapshot(), ((Timer) metric).getCount(),
+                        SECONDS_PER_NANO);
+            } else if (metric instanceof Histogram) {
+                writeSummary(writer, name, ((Histogram) metric).getSnapshot(), ((Histogram) metric).getCount(), 1);
+            } else if (metric instanceof Meter) {
+                writeSample(writer, name + "_total", "counter", ((Meter) metric).getCount());
+            } else if (metric instanceof Counter) {
+                writeSample(writer, name, "gauge", ((Counter) metric).getCount());
+            } else if (metric instanceof Gauge) {
+                Object value = ((Gauge<?>) metric).getValue();
+                if (value instanceof Number) {
+                    writeSample(writer, name, "gauge", ((Number) value).doubleValue());
+                } else if (value instanceof Boolean) {
+                    writeSample(writer, name, "gauge", (Boolean) value ? 1 : 0);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeSummary(Writer writer, String name, Snapshot snapshot, long count, double scale)
+            throws IOException {
+        writer.write("# TYPE " + name + " summary\n");
+        for (double quantile : QUANTILES) {
+            writer.write(name + "{quantile=\"" + quantile + "\"} " + format(snapshot.getValue(quantile) * scale) + "\n");
+        }
+        double sum = snapshot instanceof HdrSnapshot ? ((HdrSnapshot) snapshot).getTotalSum()
+                : snapshot.getMean() * count;
+        writer.write(name + "_sum " + format(sum * scale) + "\n");
+        writer.write(name + "_count " + count + "\n");
+    }
+
+    private static void writeSample(Writer writer, String name, String type, double value) throws IOException {
+        writer.write("# TYPE " + name + " " + type + "\n");
+        writer.write(name + " " + format(value) + "\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    // Registry names that differ only in '.', '_', ':' or another invalid character would become one series, so the
+    // later ones in the registry's sorted order get a numeric suffix
+    static String unique(String name, Set<String> names) {
+        String candidate = name;
+        for (int i = 2; !names.add(candidate); i++) {
+            candidate = name + "_" + i;
+        }
+        return candidate;
+    }
+
+    static String sanitize(String name) {
+        StringBuilder sanitized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+                    || (i > 0 && c >= '0' && c <= '9');
+            sanitized.append(valid ? c : '_');
+        }
+        return sanitized.toString();
+    }
+}
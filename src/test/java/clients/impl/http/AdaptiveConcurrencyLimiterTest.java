@@ -0,0 +1,87 @@
+package clients.impl.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void rejectsAboveLimitWithoutCountingRejection() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertFalse(limiter.tryAcquire());
+        }
+        assertEquals(3, limiter.getInFlight());
+        limiter.release();
+        assertEquals(2, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void completionReturnsPermit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        assertTrue(limiter.tryAcquire());
+        limiter.onComplete(TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void dropsShrinkLimitDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 20);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onComplete(TimeUnit.MILLISECONDS.toNanos(10), true);
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void steadyLatencyUnderLoadGrowsLimitUpToMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 20);
+        for (int i = 0; i < 500; i++) {
+            while (limiter.tryAcquire()) {
+                // fill up to the current limit
+            }
+            limiter.onComplete(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void concurrentCallersNeverExceedLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 5, 5);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        boolean[] exceeded = new boolean[1];
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    if (limiter.tryAcquire()) {
+                        if (limiter.getInFlight() > 5) {
+                            exceeded[0] = true;
+                        }
+                        limiter.release();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertFalse(exceeded[0]);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,117 @@
+package clients.impl.http;
+
+import enums.CircuitBreakerState;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_TIME = 50;
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 50, 10, 4, OPEN_TIME, 2);
+
+    @Test
+    public void staysClosedBelowMinimumRequests() {
+        fail(3);
+        assertEquals(CircuitBreakerState.closed, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void staysClosedBelowFailureRate() {
+        for (int i = 0; i < 10; i++) {
+            breaker.onComplete(breaker.tryAcquire(), i % 4 != 0);
+        }
+        assertEquals(CircuitBreakerState.closed, breaker.getState());
+    }
+
+    @Test
+    public void opensAtFailureRateAndRejects() {
+        fail(4);
+        assertEquals(CircuitBreakerState.open, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void halfOpenAdmitsOnlyProbesAfterOpenTime() throws InterruptedException {
+        openAndWait();
+        assertNotNull(breaker.tryAcquire());
+        assertEquals(CircuitBreakerState.halfOpen, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void rejectionsDoNotUseUpReleasedProbes() throws InterruptedException {
+        openAndWait();
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        assertNotNull(breaker.tryAcquire());
+        for (int i = 0; i < 1000; i++) {
+            assertNull(breaker.tryAcquire());
+        }
+        breaker.release(first);
+        assertNotNull(breaker.tryAcquire());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void closesAfterProbeSuccesses() throws InterruptedException {
+        openAndWait();
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        breaker.onComplete(first, true);
+        assertEquals(CircuitBreakerState.halfOpen, breaker.getState());
+        breaker.onComplete(second, true);
+        assertEquals(CircuitBreakerState.closed, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void probeFailureReopens() throws InterruptedException {
+        openAndWait();
+        breaker.onComplete(breaker.tryAcquire(), false);
+        assertEquals(CircuitBreakerState.open, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void requestsAdmittedBeforeTripDoNotCloseBreaker() throws InterruptedException {
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        openAndWait();
+        assertNotNull(breaker.tryAcquire());
+        breaker.onComplete(first, true);
+        breaker.onComplete(second, true);
+        assertEquals(CircuitBreakerState.halfOpen, breaker.getState());
+        breaker.onComplete(first, false);
+        assertEquals(CircuitBreakerState.halfOpen, breaker.getState());
+    }
+
+    @Test
+    public void staleProbeReleaseDoesNotAddPermits() throws InterruptedException {
+        openAndWait();
+        CircuitBreaker.Permit failed = breaker.tryAcquire();
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        breaker.onComplete(failed, false);
+        Thread.sleep(OPEN_TIME * 2);
+        assertNotNull(breaker.tryAcquire());
+        breaker.release(stale);
+        assertNotNull(breaker.tryAcquire());
+        assertNull(breaker.tryAcquire());
+    }
+
+    private void fail(int count) {
+        for (int i = 0; i < count; i++) {
+            breaker.onComplete(breaker.tryAcquire(), false);
+        }
+    }
+
+    private void openAndWait() throws InterruptedException {
+        fail(4);
+        assertEquals(CircuitBreakerState.open, breaker.getState());
+        Thread.sleep(OPEN_TIME * 2);
+    }
+}
@@ -0,0 +1,172 @@
+package clients.impl.http;
+
+import enums.ContentCoding;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ContentCompressionTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private final CompressorPool compressorPool = new CompressorPool(4, Deflater.DEFAULT_COMPRESSION);
+    private final BufferPool bufferPool = new BufferPool(4, 4096, 1024 * 1024);
+
+    @Test
+    public void gzipRequestBodyRoundTrips() throws IOException {
+        byte[] body = body(64 * 1024);
+        HttpEntity compressed = compression(ContentCoding.gzip).compress(new ByteArrayEntity(body));
+        assertEquals("gzip", compressed.getContentEncoding().getValue());
+        byte[] bytes = EntityUtils.toByteArray(compressed);
+        assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(bytes))));
+        assertArrayEquals(body, decompress(bytes, "gzip"));
+    }
+
+    @Test
+    public void deflateRequestBodyRoundTrips() throws IOException {
+        byte[] body = body(64 * 1024);
+        HttpEntity compressed = compression(ContentCoding.deflate).compress(new ByteArrayEntity(body));
+        assertEquals("deflate", compressed.getContentEncoding().getValue());
+        assertArrayEquals(body, decompress(EntityUtils.toByteArray(compressed), "deflate"));
+    }
+
+    @Test
+    public void smallBodyIsSentAsIs() throws IOException {
+        ByteArrayEntity entity = new ByteArrayEntity(body(THRESHOLD - 1));
+        assertSame(entity, compression(ContentCoding.gzip).compress(entity));
+    }
+
+    @Test
+    public void inflatesGzipResponse() throws IOException {
+        byte[] body = body(200 * 1024);
+        assertArrayEquals(body, decompress(gzip(body), "x-gzip"));
+    }
+
+    @Test
+    public void inflatesZlibAndRawDeflateResponses() throws IOException {
+        byte[] body = body(200 * 1024);
+        assertArrayEquals(body, decompress(deflate(body, false), "deflate"));
+        assertArrayEquals(body, decompress(deflate(body, true), "deflate"));
+    }
+
+    @Test
+    public void leavesUnknownCodingUntouched() throws IOException {
+        byte[] body = body(100);
+        assertArrayEquals(body, decompress(body, "br"));
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsCorruptGzipCrc() throws IOException {
+        byte[] compressed = gzip(body(10 * 1024));
+        compressed[compressed.length - 8] ^= 0xff;
+        decompress(compressed, "gzip");
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsWrongGzipSize() throws IOException {
+        byte[] compressed = gzip(body(10 * 1024));
+        compressed[compressed.length - 4] ^= 0x01;
+        decompress(compressed, "gzip");
+    }
+
+    @Test(expected = EOFException.class)
+    public void rejectsTruncatedGzipTrailer() throws IOException {
+        byte[] compressed = gzip(body(10 * 1024));
+        byte[] truncated = new byte[compressed.length - 3];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        decompress(truncated, "gzip");
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsNonGzipBody() throws IOException {
+        decompress(body(100), "gzip");
+    }
+
+    @Test
+    public void removesEncodingHeadersFromInflatedResponse() throws IOException {
+        BasicHttpResponse response = response(gzip(body(100)), "gzip");
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, "10");
+        compression(ContentCoding.identity).decompressing(inflated -> {
+            assertNull(inflated.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+            assertNull(inflated.getFirstHeader(HttpHeaders.CONTENT_LENGTH));
+            assertEquals(-1, inflated.getEntity().getContentLength());
+            return null;
+        }).handleResponse(response);
+    }
+
+    private ContentCompression compression(ContentCoding requestCoding) {
+        return new ContentCompression(requestCoding, THRESHOLD, true, compressorPool, bufferPool);
+    }
+
+    private byte[] decompress(byte[] bytes, String contentEncoding) throws IOException {
+        ResponseHandler<byte[]> handler = compression(ContentCoding.identity)
+                .decompressing(response -> EntityUtils.toByteArray(response.getEntity()));
+        return handler.handleResponse(response(bytes, contentEncoding));
+    }
+
+    private static BasicHttpResponse response(byte[] bytes, String contentEncoding) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(bytes));
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        return response;
+    }
+
+    private static byte[] body(int size) {
+        StringBuilder body = new StringBuilder(size);
+        for (int i = 0; body.length() < size; i++) {
+            body.append("{\"id\":").append(i).append(",\"value\":\"").append(Integer.toHexString(i * 31)).append("\"}");
+        }
+        return body.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body, boolean nowrap) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(body);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int count;
+        while ((count = in.read(chunk)) != -1) {
+            bytes.write(chunk, 0, count);
+        }
+        return bytes.toByteArray();
+    }
+}
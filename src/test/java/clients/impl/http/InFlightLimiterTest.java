@@ -0,0 +1,64 @@
+package clients.impl.http;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InFlightLimiterTest {
+
+    @Test
+    public void limitsEachRoute() throws InterruptedException {
+        InFlightLimiter limiter = new InFlightLimiter(10, 2, 0);
+        assertTrue(limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a"));
+        assertFalse(limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("b"));
+        limiter.release("a");
+        assertTrue(limiter.tryAcquire("a"));
+    }
+
+    @Test
+    public void limitsWholeClient() throws InterruptedException {
+        InFlightLimiter limiter = new InFlightLimiter(2, 2, 0);
+        assertTrue(limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("b"));
+        assertFalse(limiter.tryAcquire("c"));
+        limiter.release("b");
+        assertTrue(limiter.tryAcquire("c"));
+    }
+
+    @Test
+    public void routeRejectionReturnsClientPermit() throws InterruptedException {
+        InFlightLimiter limiter = new InFlightLimiter(2, 1, 0);
+        assertTrue(limiter.tryAcquire("a"));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(limiter.tryAcquire("a"));
+        }
+        assertTrue(limiter.tryAcquire("b"));
+    }
+
+    @Test
+    public void waitsForReleasedPermit() throws InterruptedException {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, 5000);
+        assertTrue(limiter.tryAcquire("a"));
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.release("a");
+        });
+        releaser.start();
+        assertTrue(limiter.tryAcquire("a"));
+        releaser.join();
+    }
+
+    @Test
+    public void timesOutWithoutRelease() throws InterruptedException {
+        InFlightLimiter limiter = new InFlightLimiter(1, 1, 20);
+        assertTrue(limiter.tryAcquire("a"));
+        assertFalse(limiter.tryAcquire("a"));
+    }
+}
@@ -0,0 +1,97 @@
+package clients.impl.http;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheTest {
+
+    private static final int BODY_SIZE = 100;
+
+    @Test
+    public void replacingKeyKeepsSingleEntry() throws IOException {
+        ResponseCache cache = new ResponseCache("replace", 10 * weight(), 60000);
+        CachedResponse last = null;
+        for (int i = 0; i < 1000; i++) {
+            last = response(null);
+            cache.put("key", last);
+        }
+        assertEquals(1, cache.size());
+        assertEquals(last.getWeight(), cache.getWeight());
+        assertSame(last, cache.get("key"));
+    }
+
+    @Test
+    public void weightStaysWithinBound() throws IOException {
+        ResponseCache cache = new ResponseCache("bound", 10 * weight(), 60000);
+        for (int i = 0; i < 50; i++) {
+            cache.put("key" + i, response(null));
+            assertTrue(cache.getWeight() <= 10 * weight());
+        }
+        assertEquals(10, cache.size());
+        assertNull(cache.get("key0"));
+        assertNotNull(cache.get("key49"));
+    }
+
+    @Test
+    public void replacedKeyIsEvictedAsNewestWrite() throws IOException {
+        ResponseCache cache = new ResponseCache("order", 2 * weight(), 60000);
+        cache.put("first", response(null));
+        cache.put("second", response(null));
+        cache.put("first", response(null));
+        cache.put("third", response(null));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("first"));
+        assertNotNull(cache.get("third"));
+    }
+
+    @Test
+    public void expiredEntriesLeaveOnLookupAndWrite() throws IOException, InterruptedException {
+        ResponseCache cache = new ResponseCache("expiry", 10 * weight(), 50);
+        cache.put("first", response(null));
+        cache.put("second", response(null));
+        Thread.sleep(100);
+        assertNull(cache.get("first"));
+        assertEquals(1, cache.size());
+        cache.put("third", response(null));
+        assertEquals(1, cache.size());
+        assertEquals(weight(), cache.getWeight());
+    }
+
+    @Test
+    public void uncacheableResponsesAreNotStored() throws IOException {
+        ResponseCache cache = new ResponseCache("uncacheable", weight(), 60000);
+        cache.put("noStore", response("no-store"));
+        cache.put("zeroAge", response("max-age=0"));
+        cache.put("oversized", CachedResponse.from(httpResponse(new byte[BODY_SIZE + 1], null)));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    private static int weight() throws IOException {
+        return response(null).getWeight();
+    }
+
+    private static CachedResponse response(String cacheControl) throws IOException {
+        return CachedResponse.from(httpResponse(new byte[BODY_SIZE], cacheControl));
+    }
+
+    private static BasicHttpResponse httpResponse(byte[] body, String cacheControl) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(body));
+        if (cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,149 @@
+package clients.impl.kafka;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecordSpoolTest {
+
+    // Header plus "t", a one byte key and a two byte value: three records to a segment
+    private static final int RECORD_SIZE = 24;
+    private static final int SEGMENT_SIZE = 8 + 3 * RECORD_SIZE;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private String path;
+    private RecordSpool spool;
+
+    @Before
+    public void setUp() throws IOException {
+        path = folder.newFolder("spool").getAbsolutePath();
+        spool = new RecordSpool(path, SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        spool.close();
+    }
+
+    @Test
+    public void peekDoesNotConsume() {
+        append(0, 5);
+        assertValues(spool.peek(10), 0, 5);
+        assertValues(spool.peek(10), 0, 5);
+        assertValues(spool.peek(2), 0, 2);
+        assertEquals(5 * RECORD_SIZE, spool.getPendingBytes());
+    }
+
+    @Test
+    public void commitConsumesUpToRecord() {
+        append(0, 5);
+        List<RecordSpool.SpooledRecord> peeked = spool.peek(10);
+        spool.commit(peeked.get(3));
+        assertValues(spool.peek(10), 4, 1);
+        assertEquals(RECORD_SIZE, spool.getPendingBytes());
+        spool.commit(spool.peek(10).get(0));
+        assertTrue(spool.peek(10).isEmpty());
+        assertEquals(0, spool.getPendingBytes());
+    }
+
+    @Test
+    public void repeatedCommitIsIgnored() {
+        append(0, 2);
+        RecordSpool.SpooledRecord first = spool.peek(1).get(0);
+        spool.commit(first);
+        spool.commit(first);
+        assertValues(spool.peek(10), 1, 1);
+    }
+
+    @Test
+    public void drainedSegmentsAreDeleted() {
+        append(0, 10);
+        assertEquals(4, segmentFiles());
+        List<RecordSpool.SpooledRecord> peeked = spool.peek(10);
+        spool.commit(peeked.get(peeked.size() - 1));
+        assertEquals(1, segmentFiles());
+        append(10, 1);
+        assertValues(spool.peek(10), 10, 1);
+    }
+
+    @Test
+    public void reopenRecoversUncommittedRecords() throws IOException {
+        append(0, 7);
+        spool.commit(spool.peek(10).get(3));
+        spool.close();
+        spool = new RecordSpool(path, SEGMENT_SIZE);
+        assertValues(spool.peek(10), 4, 3);
+        assertEquals(3 * RECORD_SIZE, spool.getPendingBytes());
+        append(7, 2);
+        assertValues(spool.peek(10), 4, 5);
+    }
+
+    @Test
+    public void keepsTopicPartitionAndNullKey() {
+        assertTrue(spool.append(new ProducerRecord<>("t", 3, null, bytes("v0"))));
+        ProducerRecord<byte[], byte[]> producerRecord = spool.peek(1).get(0).getProducerRecord();
+        assertEquals("t", producerRecord.topic());
+        assertEquals(Integer.valueOf(3), producerRecord.partition());
+        assertNull(producerRecord.key());
+        assertArrayEquals(bytes("v0"), producerRecord.value());
+    }
+
+    @Test
+    public void rejectsRecordLargerThanSegment() {
+        assertFalse(spool.append(new ProducerRecord<>("t", bytes("k"), new byte[SEGMENT_SIZE])));
+        assertEquals(0, spool.getPendingBytes());
+    }
+
+    @Test
+    public void rejectsAppendAfterClose() {
+        spool.close();
+        assertFalse(spool.append(record(0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void directoryIsClaimedOnce() throws IOException {
+        new RecordSpool(path, SEGMENT_SIZE);
+    }
+
+    private void append(int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            assertTrue(spool.append(record(i)));
+        }
+    }
+
+    private static ProducerRecord<byte[], byte[]> record(int i) {
+        return new ProducerRecord<>("t", bytes("k"), bytes(String.format("%02d", i)));
+    }
+
+    private static void assertValues(List<RecordSpool.SpooledRecord> spooledRecords, int from, int count) {
+        assertEquals(count, spooledRecords.size());
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(bytes(String.format("%02d", from + i)), spooledRecords.get(i).getProducerRecord().value());
+        }
+    }
+
+    private int segmentFiles() {
+        File[] files = new File(path).listFiles((dir, name) -> name.endsWith(".spool"));
+        return files == null ? 0 : files.length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}